@@ -0,0 +1,62 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.util.LongColumn;
+import com.test_task.n_minimal.util.XlsxToListConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение первого столбца xlsx: список Long и примитивный столбец,
+ * и те же значения из CSV для сравнения с параллельным разбором.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConverterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param
+    private InputShape shape;
+
+    private final XlsxToListConverter converter = new XlsxToListConverter();
+
+    private Path file;
+    private Path csvFile;
+
+    @Setup(Level.Trial)
+    public void createWorkbook() throws IOException {
+        file = WorkbookFixtures.create(rows, shape);
+        csvFile = WorkbookFixtures.createCsv(rows, shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public List<Long> convert() {
+        return converter.convert(file.toString());
+    }
+
+    @Benchmark
+    public LongColumn convertToColumn() {
+        return converter.convertToColumn(file.toString());
+    }
+
+    @Benchmark
+    public LongColumn convertCsvToColumn() {
+        return converter.convertToColumn(csvFile.toString());
+    }
+}
@@ -0,0 +1,48 @@
+package com.test_task.n_minimal.benchmark;
+
+import java.util.Random;
+
+/**
+ * Форма входных данных бенчмарка: порядок значений и тип ячеек в первом столбце.
+ */
+public enum InputShape {
+
+    RANDOM,
+    SORTED,
+    REVERSED,
+    // Все значения одинаковые
+    DUPLICATES,
+    // Случайные значения, записанные в ячейки строками
+    STRINGS;
+
+    private static final long SEED = 42L;
+
+    /**
+     * Значения столбца: уникальные для всех форм, кроме {@link #DUPLICATES}.
+     */
+    public long[] values(int rows) {
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = switch (this) {
+                case REVERSED -> (long) (rows - i) * 1_000;
+                case DUPLICATES -> 42L;
+                default -> (long) i * 1_000;
+            };
+        }
+
+        if (this == RANDOM || this == STRINGS) {
+            Random random = new Random(SEED);
+            for (int i = rows - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long swap = values[i];
+                values[i] = values[j];
+                values[j] = swap;
+            }
+        }
+        return values;
+    }
+
+    public int distinctCount(int rows) {
+        return this == DUPLICATES ? 1 : rows;
+    }
+}
@@ -0,0 +1,46 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.util.Sorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Исходная сортировка списка Long. Быстрая сортировка с опорным последним элементом
+ * квадратична и рекурсивна на упорядоченных данных, поэтому размеры ограничены,
+ * а стек потока увеличен.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xss512m"})
+public class LegacySortBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES"})
+    private InputShape shape;
+
+    private final Sorter sorter = new Sorter();
+
+    private List<Long> values;
+
+    @Setup(Level.Trial)
+    public void createValues() {
+        long[] generated = shape.values(rows);
+        values = new ArrayList<>(rows);
+        for (long value : generated) {
+            values.add(value);
+        }
+    }
+
+    @Benchmark
+    public List<Long> sort() {
+        return sorter.sort(values);
+    }
+}
@@ -0,0 +1,207 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.NMinimalApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочный прогон GET /api/find-nth-min внутри одной JVM.
+ * Поднимает приложение на случайном локальном порту, генерирует xlsx-файлы и для каждого уровня
+ * конкурентности отправляет одинаковую последовательность запросов (файл, N), выбранную по seed.
+ * Задержки пишутся в HdrHistogram, по каждому уровню выводятся перцентили и пропускная способность,
+ * а полные распределения сохраняются в каталог output для сравнения до и после изменений.
+ *
+ * <p>Параметры в виде key=value:
+ * <ul>
+ *     <li>files - строки и форма файлов, например 1000:RANDOM,100000:STRINGS</li>
+ *     <li>n - значения N, например 1,10,500</li>
+ *     <li>concurrency - уровни конкурентности, например 1,8,32</li>
+ *     <li>requests, warmup - число измеряемых и прогревочных запросов на уровень</li>
+ *     <li>seed - seed выбора пар (файл, N)</li>
+ *     <li>output - каталог для файлов .hgrm</li>
+ *     <li>app.&lt;свойство&gt; - свойство приложения, например app.n-minimal.cache.max-bytes=0</li>
+ * </ul>
+ */
+public final class LoadHarness {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = defaults();
+        List<String> appProperties = new ArrayList<>(List.of(
+                "server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN"));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            if (key.startsWith("app.")) {
+                appProperties.add(arg.substring("app.".length()));
+            } else if (options.containsKey(key)) {
+                options.put(key, arg.substring(separator + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        List<Path> files = createFiles(options.get("files"));
+        List<String> values = split(options.get("n"));
+        int requests = Integer.parseInt(options.get("requests"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        long seed = Long.parseLong(options.get("seed"));
+        Path output = Path.of(options.get("output"));
+        Files.createDirectories(output);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NMinimalApplication.class)
+                .properties(appProperties.toArray(String[]::new))
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            System.out.printf("%-12s %10s %8s %12s %10s %10s %10s %10s %10s%n",
+                    "concurrency", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+            for (String level : split(options.get("concurrency"))) {
+                int concurrency = Integer.parseInt(level);
+                List<URI> warmupPlan = plan(port, files, values, warmup, seed);
+                List<URI> plan = plan(port, files, values, requests, seed + 1);
+
+                run(client, warmupPlan, concurrency, new Recorder(MAX_LATENCY_NANOS, 3));
+                Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+                Result result = run(client, plan, concurrency, recorder);
+                Histogram histogram = recorder.getIntervalHistogram();
+
+                System.out.printf("%-12d %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                        concurrency, plan.size(), result.errors(),
+                        plan.size() * 1e9 / result.elapsedNanos(),
+                        millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(90)),
+                        millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9)),
+                        millis(histogram.getMaxValue()));
+
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(output.resolve("concurrency-" + concurrency + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(out, 1_000_000.0);
+                }
+            }
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static Map<String, String> defaults() {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("files", "1000:RANDOM,100000:RANDOM,100000:STRINGS");
+        options.put("n", "1,10,500");
+        options.put("concurrency", "1,8,32");
+        options.put("requests", "2000");
+        options.put("warmup", "200");
+        options.put("seed", "42");
+        options.put("output", "target/load");
+        return options;
+    }
+
+    private static List<Path> createFiles(String specs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String spec : split(specs)) {
+            String[] parts = spec.split(":");
+            files.add(WorkbookFixtures.create(Integer.parseInt(parts[0]), InputShape.valueOf(parts[1])));
+        }
+        return files;
+    }
+
+    // Последовательность запросов зависит только от seed, поэтому прогоны сравнимы между собой
+    private static List<URI> plan(int port, List<Path> files, List<String> values, int requests, long seed) {
+        Random random = new Random(seed);
+        List<URI> plan = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            Path file = files.get(random.nextInt(files.size()));
+            String n = values.get(random.nextInt(values.size()));
+            plan.add(URI.create("http://localhost:" + port + "/api/find-nth-min?fileLink="
+                    + URLEncoder.encode(file.toString(), StandardCharsets.UTF_8) + "&N=" + n));
+        }
+        return plan;
+    }
+
+    private static Result run(HttpClient client, List<URI> plan, int concurrency, Recorder recorder)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        LongAdder errors = new LongAdder();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < plan.size()) {
+                    HttpRequest request = HttpRequest.newBuilder(plan.get(index)).GET().build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorder.recordValue(Math.min(System.nanoTime() - sent, MAX_LATENCY_NANOS));
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+
+        return new Result(System.nanoTime() - start, errors.sum());
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Result(long elapsedNanos, long errors) {
+    }
+}
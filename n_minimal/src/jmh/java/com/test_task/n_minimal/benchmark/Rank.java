@@ -0,0 +1,15 @@
+package com.test_task.n_minimal.benchmark;
+
+/**
+ * Какое N запрашивается в бенчмарке.
+ */
+public enum Rank {
+
+    FIRST,
+    // Середина уникальных значений: при большом столбце N больше порога кучи, и работает introselect
+    MEDIAN;
+
+    public int n(int distinctCount) {
+        return this == FIRST ? 1 : Math.max(1, distinctCount / 2);
+    }
+}
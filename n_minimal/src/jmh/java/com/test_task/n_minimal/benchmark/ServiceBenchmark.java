@@ -0,0 +1,72 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.service.NMinimalServiceImpl;
+import com.test_task.n_minimal.service.QuantileSketchCache;
+import com.test_task.n_minimal.service.QueryMetrics;
+import com.test_task.n_minimal.service.SortedColumnCache;
+import com.test_task.n_minimal.service.SortedColumnIndex;
+import com.test_task.n_minimal.util.Sorter;
+import com.test_task.n_minimal.util.Validator;
+import com.test_task.n_minimal.util.XlsxToListConverter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный путь запроса getNthMinimal: валидация, чтение файла и выбор.
+ * Без кеша каждый вызов разбирает файл; с кешем измеряется повторный запрос к уже разобранному файлу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param
+    private InputShape shape;
+
+    @Param
+    private Rank rank;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private NMinimalServiceImpl service;
+    private Path file;
+    private String fileLink;
+    private String n;
+
+    @Setup(Level.Trial)
+    public void createService() throws IOException {
+        file = WorkbookFixtures.create(rows, shape);
+        fileLink = file.toString();
+        n = Integer.toString(rank.n(shape.distinctCount(rows)));
+
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getCache().setMaxBytes(cached ? 1L << 30 : 0);
+        service = new NMinimalServiceImpl(new Validator(), new XlsxToListConverter(), new Sorter(),
+                new SortedColumnCache(properties), new SortedColumnIndex(properties),
+                new QuantileSketchCache(properties), properties, Runnable::run,
+                new QueryMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Long getNthMinimal() {
+        return service.getNthMinimal(fileLink, n);
+    }
+}
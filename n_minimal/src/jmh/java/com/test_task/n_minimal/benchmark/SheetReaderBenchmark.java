@@ -0,0 +1,70 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.util.LongColumn;
+import com.test_task.n_minimal.util.XlsxToListConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Строк листа xlsx в секунду: байтовый разбор FastSheetReader против SAX-обработчика POI.
+ * Число строк выводится отдельным счётчиком {@code rowsRead} в ops/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SheetReaderBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"RANDOM", "STRINGS"})
+    private InputShape shape;
+
+    private final XlsxToListConverter fast = new XlsxToListConverter(true);
+    private final XlsxToListConverter sax = new XlsxToListConverter(false);
+
+    private Path file;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+
+        public long rowsRead;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rowsRead = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createWorkbook() throws IOException {
+        file = WorkbookFixtures.create(rows, shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public LongColumn fastReader(RowCounter counter) {
+        LongColumn column = fast.convertToColumn(file.toString());
+        counter.rowsRead += rows;
+        return column;
+    }
+
+    @Benchmark
+    public LongColumn saxReader(RowCounter counter) {
+        LongColumn column = sax.convertToColumn(file.toString());
+        counter.rowsRead += rows;
+        return column;
+    }
+}
@@ -0,0 +1,61 @@
+package com.test_task.n_minimal.benchmark;
+
+import com.test_task.n_minimal.util.LongColumn;
+import com.test_task.n_minimal.util.SortedColumn;
+import com.test_task.n_minimal.util.Sorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор N-го минимума на примитивном столбце. Выбор переупорядочивает массив,
+ * поэтому каждый вызов работает с копией; её стоимость показывает {@link #copy()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SorterBenchmark {
+
+    @Param({"1000", "100000", "1000000", "5000000"})
+    private int rows;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES"})
+    private InputShape shape;
+
+    @Param
+    private Rank rank;
+
+    private final Sorter sorter = new Sorter();
+
+    private long[] values;
+    private int n;
+
+    @Setup(Level.Trial)
+    public void createValues() {
+        values = shape.values(rows);
+        n = rank.n(shape.distinctCount(rows));
+    }
+
+    @Benchmark
+    public LongColumn copy() {
+        return LongColumn.of(values);
+    }
+
+    @Benchmark
+    public long selectWithHeap() {
+        return sorter.selectWithHeap(values, rows, n);
+    }
+
+    @Benchmark
+    public long select() {
+        return sorter.select(LongColumn.of(values), n);
+    }
+
+    @Benchmark
+    public SortedColumn sortDistinct() {
+        return sorter.sortDistinct(LongColumn.of(values));
+    }
+}
@@ -0,0 +1,74 @@
+package com.test_task.n_minimal.benchmark;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Генерация xlsx- и csv-файлов для бенчмарков при их запуске, без хранения файлов в репозитории.
+ * Запись xlsx идёт через SXSSF, поэтому в памяти держится только окно строк.
+ */
+public final class WorkbookFixtures {
+
+    // Последняя строка листа xlsx имеет номер 1 048 576
+    public static final int MAX_ROWS = 1_048_576;
+
+    private static final int ROW_WINDOW = 1_000;
+
+    private WorkbookFixtures() {
+    }
+
+    /**
+     * Создаёт временный файл, в первом столбце которого лежат значения формы {@code shape}.
+     * Для {@link InputShape#STRINGS} ячейки строковые и хранятся в таблице общих строк, как у Excel.
+     */
+    public static Path create(int rows, InputShape shape) throws IOException {
+        if (rows > MAX_ROWS) {
+            throw new IllegalArgumentException("xlsx sheet cannot hold more than " + MAX_ROWS + " rows");
+        }
+
+        long[] values = shape.values(rows);
+        Path file = Files.createTempFile("n-minimal-" + shape.name().toLowerCase() + "-" + rows + "-", ".xlsx");
+        boolean strings = shape == InputShape.STRINGS;
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, ROW_WINDOW, true, strings);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < rows; i++) {
+                Cell cell = sheet.createRow(i).createCell(0);
+                if (strings) {
+                    cell.setCellValue(Long.toString(values[i]));
+                } else {
+                    cell.setCellValue(values[i]);
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return file;
+    }
+
+    /**
+     * Создаёт временный CSV-файл с теми же значениями в первом поле и вторым текстовым полем.
+     */
+    public static Path createCsv(int rows, InputShape shape) throws IOException {
+        long[] values = shape.values(rows);
+        Path file = Files.createTempFile("n-minimal-" + shape.name().toLowerCase() + "-" + rows + "-", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("value,label\n");
+            for (long value : values) {
+                out.write(Long.toString(value));
+                out.write(",row\n");
+            }
+        }
+        return file;
+    }
+}
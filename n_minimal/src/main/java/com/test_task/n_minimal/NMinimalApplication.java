@@ -2,12 +2,14 @@ package com.test_task.n_minimal;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Приложение для вывода минимального значения N из 1 столбца указанной таблицы Excel
  * Работает в веб-интерфейсе Swagger
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class NMinimalApplication {
 
 	public static void main(String[] args) {
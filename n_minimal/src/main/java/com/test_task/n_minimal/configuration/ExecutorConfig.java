@@ -0,0 +1,48 @@
+package com.test_task.n_minimal.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Пул для параллельного разбора файлов массового запроса.
+     * Размер ограничен, чтобы большой запрос не занял все ядра и память под столбцы.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService bulkExecutor(NMinimalProperties properties) {
+        return Executors.newFixedThreadPool(properties.getBulk().getParallelism(),
+                new CustomizableThreadFactory("bulk-parse-"));
+    }
+
+    /**
+     * Пул асинхронных запросов. Очередь ограничена: при её переполнении задача отклоняется
+     * сразу, и клиент получает 503 вместо ожидания за тяжёлыми разборами.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService parseExecutor(NMinimalProperties properties) {
+        NMinimalProperties.Async async = properties.getAsync();
+        return new ThreadPoolExecutor(async.getParallelism(), async.getParallelism(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()), new CustomizableThreadFactory("async-parse-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Пул фоновых задач /api/jobs с ограниченной очередью.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService jobExecutor(NMinimalProperties properties) {
+        NMinimalProperties.Jobs jobs = properties.getJobs();
+        return new ThreadPoolExecutor(jobs.getParallelism(), jobs.getParallelism(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()), new CustomizableThreadFactory("job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,43 @@
+package com.test_task.n_minimal.configuration;
+
+import com.test_task.n_minimal.service.QuantileSketchCache;
+import com.test_task.n_minimal.service.SortedColumnCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Счётчики кеша отсортированных столбцов читаются из его LongAdder при сборе метрик.
+     */
+    @Bean
+    public MeterBinder sortedColumnCacheMetrics(SortedColumnCache cache) {
+        return registry -> {
+            FunctionCounter.builder("n_minimal.cache.hits", cache, SortedColumnCache::getHitCount)
+                    .register(registry);
+            FunctionCounter.builder("n_minimal.cache.misses", cache, SortedColumnCache::getMissCount)
+                    .register(registry);
+            Gauge.builder("n_minimal.cache.bytes", cache, SortedColumnCache::getCurrentBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Объём кеша скетчей приближённого режима, чтобы видеть выигрыш по памяти против столбцов.
+     */
+    @Bean
+    public MeterBinder quantileSketchCacheMetrics(QuantileSketchCache cache) {
+        return registry -> {
+            Gauge.builder("n_minimal.sketch.cache.entries", cache, QuantileSketchCache::size)
+                    .register(registry);
+            Gauge.builder("n_minimal.sketch.cache.bytes", cache, QuantileSketchCache::getCurrentBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
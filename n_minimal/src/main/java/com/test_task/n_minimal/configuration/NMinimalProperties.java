@@ -0,0 +1,245 @@
+package com.test_task.n_minimal.configuration;
+
+import com.test_task.n_minimal.util.KllSketch;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки приложения из секции n-minimal файла application.yaml
+ */
+@ConfigurationProperties(prefix = "n-minimal")
+public class NMinimalProperties {
+
+    private final Cache cache = new Cache();
+    private final Index index = new Index();
+    private final Bulk bulk = new Bulk();
+    private final Async async = new Async();
+    private final Jobs jobs = new Jobs();
+    private final Sketch sketch = new Sketch();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public Sketch getSketch() {
+        return sketch;
+    }
+
+    public static class Cache {
+
+        /**
+         * Максимальный объём отсортированных столбцов в кеше, в байтах. 0 отключает кеш.
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+
+        /**
+         * Сколько столбцов хранится в кеше. Ограничивает и столбцы из индекса: они отображены в память
+         * и в куче почти не занимают места, но каждый держит открытое отображение файла.
+         */
+        private int maxEntries = 1024;
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Index {
+
+        /**
+         * Каталог для файлов индекса отсортированных столбцов. Пустое значение отключает индекс.
+         */
+        private String directory;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Сколько разных файлов массового запроса разбираются одновременно.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    public static class Async {
+
+        /**
+         * Сколько асинхронных запросов разбирают файлы одновременно.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Сколько запросов могут ждать свободного потока. Остальные сразу получают 503.
+         */
+        private int queueCapacity = 32;
+
+        /**
+         * Максимальное время ответа асинхронного запроса.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * Значение заголовка Retry-After при отказе из-за переполненной очереди.
+         */
+        private Duration retryAfter = Duration.ofSeconds(5);
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class Jobs {
+
+        /**
+         * Сколько фоновых задач выполняются одновременно.
+         */
+        private int parallelism = 2;
+
+        /**
+         * Сколько задач могут ждать в очереди. При переполнении новая задача получает 503.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * Сколько хранится результат завершённой задачи.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * Значение заголовка Retry-After при отказе из-за переполненной очереди задач.
+         */
+        private Duration retryAfter = Duration.ofSeconds(5);
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class Sketch {
+
+        /**
+         * Точность скетча приближённого режима: чем больше k, тем меньше ошибка ранга и больше память.
+         */
+        private int k = KllSketch.DEFAULT_K;
+
+        /**
+         * Сколько скетчей хранится в кеше. 0 отключает кеш.
+         */
+        private int cacheEntries = 1024;
+
+        public int getK() {
+            return k;
+        }
+
+        public void setK(int k) {
+            this.k = k;
+        }
+
+        public int getCacheEntries() {
+            return cacheEntries;
+        }
+
+        public void setCacheEntries(int cacheEntries) {
+            this.cacheEntries = cacheEntries;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.test_task.n_minimal.controller;
+
+import com.test_task.n_minimal.dto.RangeResult;
+import com.test_task.n_minimal.service.NMinimalService;
+import com.test_task.n_minimal.util.ColumnSelector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контроллер запросов по рангу и значению к одному столбцу.
+ * Все запросы работают на том же разобранном и отсортированном столбце из кеша, что и N-й минимум,
+ * поэтому после первого запроса к файлу каждый следующий выполняется за O(log n) без разбора.
+ */
+@RestController
+@RequestMapping("/api")
+@Tag(name = "Column queries", description = "Rank, percentile and range queries over one parsed column")
+public class ColumnQueryController {
+
+    private final NMinimalService service;
+
+    public ColumnQueryController(NMinimalService service) {
+        this.service = service;
+    }
+
+    /**
+     * @param fileLink ссылка на локальный файл
+     * @param N        требуемое максимальное число
+     * @param sheet    имя или номер листа с 1
+     * @param column   буква или номер столбца с 1
+     * @return значение N-го максимального уникального числа
+     */
+    @Operation(summary = "Gets N maximal value from local file.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link is incorrect, or file no found"), @ApiResponse(responseCode =
+            "404", description = "File link or N are not found")})
+    @GetMapping("/find-nth-max")
+    public ResponseEntity<Long> getNthMaximal(@RequestParam final String fileLink, @RequestParam final String N,
+                                              @RequestParam(required = false) final String sheet,
+                                              @RequestParam(required = false) final String column) {
+
+        return ResponseEntity.ok(service.getNthMaximal(fileLink.trim(), N.trim(), new ColumnSelector(sheet, column)));
+    }
+
+    /**
+     * @param fileLink ссылка на локальный файл
+     * @param p        процентиль от 0 до 100, например 95 или 99.9
+     * @param sheet    имя или номер листа с 1
+     * @param column   буква или номер столбца с 1
+     * @return процентиль уникальных чисел по методу ближайшего ранга
+     */
+    @Operation(summary = "Gets p-th percentile of distinct values from local file.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link or percentile is incorrect"), @ApiResponse(responseCode =
+            "404", description = "File link or percentile are not found")})
+    @GetMapping("/percentile")
+    public ResponseEntity<Long> getPercentile(@RequestParam final String fileLink, @RequestParam final String p,
+                                              @RequestParam(required = false) final String sheet,
+                                              @RequestParam(required = false) final String column) {
+
+        return ResponseEntity.ok(service.getPercentile(fileLink.trim(), p.trim(), new ColumnSelector(sheet, column)));
+    }
+
+    /**
+     * @param fileLink ссылка на локальный файл
+     * @param x        граница включительно
+     * @param sheet    имя или номер листа с 1
+     * @param column   буква или номер столбца с 1
+     * @return сколько уникальных чисел не больше X
+     */
+    @Operation(summary = "Counts distinct values less than or equal to X.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link or X is incorrect"), @ApiResponse(responseCode =
+            "404", description = "File link or X are not found")})
+    @GetMapping("/count-at-most")
+    public ResponseEntity<Integer> countAtMost(@RequestParam final String fileLink, @RequestParam final String x,
+                                               @RequestParam(required = false) final String sheet,
+                                               @RequestParam(required = false) final String column) {
+
+        return ResponseEntity.ok(service.countAtMost(fileLink.trim(), x.trim(), new ColumnSelector(sheet, column)));
+    }
+
+    /**
+     * @param fileLink ссылка на локальный файл
+     * @param from     начало диапазона включительно
+     * @param to       конец диапазона включительно
+     * @param limit    сколько значений вернуть; количество считается по всему диапазону
+     * @param sheet    имя или номер листа с 1
+     * @param column   буква или номер столбца с 1
+     * @return количество уникальных чисел в диапазоне и первые limit из них по возрастанию
+     */
+    @Operation(summary = "Gets distinct values between from and to inclusive.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link or range is incorrect"), @ApiResponse(responseCode =
+            "404", description = "File link or range bounds are not found")})
+    @GetMapping("/range")
+    public ResponseEntity<RangeResult> getRange(@RequestParam final String fileLink, @RequestParam final String from,
+                                                @RequestParam final String to,
+                                                @RequestParam(defaultValue = "1000") final int limit,
+                                                @RequestParam(required = false) final String sheet,
+                                                @RequestParam(required = false) final String column) {
+
+        return ResponseEntity.ok(service.getRange(fileLink.trim(), from.trim(), to.trim(), limit,
+                new ColumnSelector(sheet, column)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.test_task.n_minimal.controller;
+
+import com.test_task.n_minimal.dto.JobRequest;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+/**
+ * REST контроллер фоновых задач для файлов, разбор которых дольше таймаута клиента.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@Tag(name = "Jobs", description = "Background N minimal queries with progress")
+public class JobController {
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Ставит запрос (fileLink, N) в очередь фоновых задач.
+     *
+     * @param request ссылка на локальный файл и N
+     * @return состояние задачи и ссылка на неё в заголовке Location
+     */
+    @Operation(summary = "Submits N minimal query as a background job.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "202", description = "Job accepted"),
+            @ApiResponse(responseCode = "503", description = "Job queue is full")})
+    @PostMapping
+    public ResponseEntity<JobStatus> submit(@RequestBody final JobRequest request) {
+        JobStatus status = jobService.submit(trim(request.fileLink()), trim(request.n()));
+
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + status.id())).body(status);
+    }
+
+    /**
+     * @param id идентификатор задачи
+     * @return состояние, прогресс (обработанные строки и оценка их общего числа) и результат задачи
+     */
+    @Operation(summary = "Gets job state, progress and result.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired")})
+    @GetMapping("/{id}")
+    public ResponseEntity<JobStatus> get(@PathVariable final String id) {
+        return ResponseEntity.ok(jobService.get(id));
+    }
+
+    /**
+     * @param id идентификатор задачи
+     * @return состояние задачи после отмены
+     */
+    @Operation(summary = "Cancels the job.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "404", description = "Job not found or expired")})
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobStatus> cancel(@PathVariable final String id) {
+        return ResponseEntity.ok(jobService.cancel(id));
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -1,15 +1,34 @@
 package com.test_task.n_minimal.controller;
 
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.ApproximateResult;
+import com.test_task.n_minimal.dto.BulkQuery;
+import com.test_task.n_minimal.dto.BulkResult;
+import com.test_task.n_minimal.dto.NthMinimalResult;
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
 import com.test_task.n_minimal.service.NMinimalService;
+import com.test_task.n_minimal.util.ColumnSelector;
+import com.test_task.n_minimal.util.QueryTrace;
+import com.test_task.n_minimal.util.ScanProgress;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * REST контроллер для работы с сервисом.
@@ -19,30 +38,231 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Find N Minimal", description = "Finds N-th minimal value in local file")
 public class NMinimalController {
 
+    static final String SERVER_TIMING = "Server-Timing";
+    static final String QUERY_DEBUG = "X-Query-Debug";
+
+    static final String SERVICE_OVERLOADED = "Too many requests in progress, try again later";
+
     private final NMinimalService service;
+    private final Executor parseExecutor;
+    private final NMinimalProperties properties;
 
-    public NMinimalController(NMinimalService service) {
+    public NMinimalController(NMinimalService service, @Qualifier("parseExecutor") Executor parseExecutor,
+                              NMinimalProperties properties) {
         this.service = service;
+        this.parseExecutor = parseExecutor;
+        this.properties = properties;
     }
 
     /**
      * Отдаёт N число из локального файла, переданного в первом параметре.
-     * Значения берутся из 1 столбца 1 листа, и сортируются по возрастанию.
+     * Значения берутся из 1 столбца 1 листа, если лист и столбец не указаны, и сортируются по возрастанию.
+     * Время этапов запроса возвращается в заголовке Server-Timing.
      * интерфейс Swagger доступен по адресу http://localhost:8080/swagger-ui/
      *
      * @param fileLink ссылка на локальный файл
      * @param N требуемое минимальное число
+     * @param sheet имя или номер листа с 1
+     * @param column буква или номер столбца с 1
+     * @param distinct true - N-е среди уникальных чисел, false - повторы учитываются
+     * @param debug вернуть в заголовке X-Query-Debug стратегию выбора, число строк, значений и пропущенных ячеек
+     * @param timeoutMs срок запроса в миллисекундах; по его истечении разбор прерывается и возвращается 503
      * @return значение N-го минимального числа
      */
     @Operation(summary = "Gets N minimal value from local file.")
     @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
             "400", description = "Bad request - link is incorrect, or file no found"), @ApiResponse(responseCode =
-            "404", description = "File link or N are not found")})
+            "404", description = "File link or N are not found"), @ApiResponse(responseCode = "503", description =
+            "Request timed out")})
     @GetMapping("/find-nth-min")
-    public ResponseEntity<Long> getNthMinimal(@RequestParam final String fileLink, @RequestParam final String N) {
+    public ResponseEntity<Long> getNthMinimal(@RequestParam final String fileLink, @RequestParam final String N,
+                                              @RequestParam(required = false) final String sheet,
+                                              @RequestParam(required = false) final String column,
+                                              @RequestParam(defaultValue = "true") final boolean distinct,
+                                              @RequestParam(defaultValue = "false") final boolean debug,
+                                              @RequestParam(required = false) final Long timeoutMs) {
+
+        ScanProgress progress = timeoutMs != null && timeoutMs > 0 ? new ScanProgress().withTimeout(timeoutMs) : null;
+
+        return findTraced(fileLink, N, new ColumnSelector(sheet, column), distinct, debug, progress);
+    }
+
+    /**
+     * Приближённый вариант {@link #getNthMinimal} для мониторинга больших файлов: {@code mode=approximate}.
+     * Значения столбца проходят через квантильный скетч KLL размером в несколько килобайт,
+     * который кешируется для файла. Повторы значений учитываются, N - ранг среди всех чисел столбца.
+     *
+     * @param fileLink ссылка на локальный файл
+     * @param N требуемый ранг
+     * @param sheet имя или номер листа с 1
+     * @param column буква или номер столбца с 1
+     * @param debug вернуть в заголовке X-Query-Debug стратегию выбора и счётчики разбора
+     * @param timeoutMs срок запроса в миллисекундах; по его истечении разбор прерывается и возвращается 503
+     * @return оценка значения, число прочитанных чисел и граница ошибки ранга
+     */
+    @Operation(summary = "Estimates N minimal value from local file with a quantile sketch.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link is incorrect, or file no found"), @ApiResponse(responseCode =
+            "404", description = "File link or N are not found"), @ApiResponse(responseCode = "503", description =
+            "Request timed out")})
+    @GetMapping(value = "/find-nth-min", params = "mode=approximate")
+    public ResponseEntity<ApproximateResult> getApproximateNthMinimal(@RequestParam final String fileLink,
+                                                                      @RequestParam final String N,
+                                                                      @RequestParam(required = false)
+                                                                      final String sheet,
+                                                                      @RequestParam(required = false)
+                                                                      final String column,
+                                                                      @RequestParam(defaultValue = "false")
+                                                                      final boolean debug,
+                                                                      @RequestParam(required = false)
+                                                                      final Long timeoutMs) {
+
+        ScanProgress progress = timeoutMs != null && timeoutMs > 0 ? new ScanProgress().withTimeout(timeoutMs) : null;
+        ColumnSelector selector = new ColumnSelector(sheet, column);
+
+        return traced(debug, progress,
+                () -> service.getApproximateNthMinimal(fileLink.trim(), N.trim(), selector));
+    }
+
+    /**
+     * Асинхронный вариант {@link #getNthMinimal}: файл разбирается в отдельном ограниченном пуле,
+     * и поток Tomcat освобождается на время разбора.
+     * Если очередь пула заполнена, запрос сразу отклоняется с 503 и заголовком Retry-After.
+     * По истечении срока или при отключении клиента разбор прерывается, по сроку возвращается 503.
+     *
+     * @param fileLink ссылка на локальный файл
+     * @param N требуемое минимальное число
+     * @param sheet имя или номер листа с 1
+     * @param column буква или номер столбца с 1
+     * @param distinct true - N-е среди уникальных чисел, false - повторы учитываются
+     * @param debug вернуть в заголовке X-Query-Debug стратегию выбора и счётчики разбора
+     * @param timeoutMs срок запроса в миллисекундах, по умолчанию n-minimal.async.timeout
+     * @return значение N-го минимального числа
+     */
+    @Operation(summary = "Gets N minimal value from local file without holding a server thread.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success"), @ApiResponse(responseCode =
+            "400", description = "Bad request - link is incorrect, or file no found"), @ApiResponse(responseCode =
+            "404", description = "File link or N are not found"), @ApiResponse(responseCode = "503", description =
+            "Too many requests in progress or request timed out")})
+    @GetMapping("/find-nth-min/async")
+    public DeferredResult<ResponseEntity<Long>> getNthMinimalAsync(@RequestParam final String fileLink,
+                                                                   @RequestParam final String N,
+                                                                   @RequestParam(required = false)
+                                                                   final String sheet,
+                                                                   @RequestParam(required = false)
+                                                                   final String column,
+                                                                   @RequestParam(defaultValue = "true")
+                                                                   final boolean distinct,
+                                                                   @RequestParam(defaultValue = "false")
+                                                                   final boolean debug,
+                                                                   @RequestParam(required = false)
+                                                                   final Long timeoutMs) {
 
-        Long nthMinimal = service.getNthMinimal(fileLink.trim(), N.trim());
+        NMinimalProperties.Async async = properties.getAsync();
+        long timeout = timeoutMs != null && timeoutMs > 0 ? timeoutMs : async.getTimeout().toMillis();
+        ScanProgress progress = new ScanProgress().withTimeout(timeout);
+        DeferredResult<ResponseEntity<Long>> result = new DeferredResult<>(timeout);
+        ColumnSelector selector = new ColumnSelector(sheet, column);
+
+        // Истёк срок или клиент отключился: разбор прерывается в ближайшей точке проверки
+        result.onTimeout(() -> {
+            progress.cancel();
+            result.setErrorResult(new RequestTimeoutException(timeout));
+        });
+        result.onError(error -> progress.cancel());
+
+        try {
+            parseExecutor.execute(() -> {
+                try {
+                    result.setResult(findTraced(fileLink, N, selector, distinct, debug, progress));
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException(SERVICE_OVERLOADED, async.getRetryAfter().toSeconds());
+        }
+        return result;
+    }
+
+    /**
+     * Отдаёт несколько N-х минимальных чисел из одного файла.
+     * Файл проверяется, разбирается и сортируется один раз для всех N.
+     * Ошибка отдельного N (не число, превышает количество значений) возвращается в его элементе.
+     *
+     * @param fileLink ссылка на локальный файл
+     * @param values   список N через запятую, например 1,5,10,500
+     * @param sheet    имя или номер листа с 1
+     * @param column   буква или номер столбца с 1
+     * @return результаты в порядке запрошенных N
+     */
+    @Operation(summary = "Gets several N minimal values from local file in one pass.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success, per-item errors in body"),
+            @ApiResponse(responseCode = "400", description = "Bad request - link is incorrect, or file no found"),
+            @ApiResponse(responseCode = "404", description = "File link is not found")})
+    @GetMapping("/find-nth-min/batch")
+    public ResponseEntity<List<NthMinimalResult>> getNthMinimalBatch(@RequestParam final String fileLink,
+                                                                     @RequestParam("n") final List<String> values,
+                                                                     @RequestParam(required = false)
+                                                                     final String sheet,
+                                                                     @RequestParam(required = false)
+                                                                     final String column) {
+
+        List<NthMinimalResult> results = service.getNthMinimalBatch(fileLink.trim(),
+                values.stream().map(String::trim).toList(), new ColumnSelector(sheet, column));
+
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Отдаёт N-е минимальные числа для списка пар (файл, N).
+     * Каждый файл разбирается один раз, разные файлы разбираются параллельно.
+     * Ошибка пары возвращается в её элементе с тем же HTTP-статусом, что и у одиночного запроса.
+     *
+     * @param queries   пары (файл, N), в каждой можно указать sheet и column
+     * @param timeoutMs срок всего запроса в миллисекундах; пары, не успевшие к сроку, получают 503
+     * @return результаты в порядке пар
+     */
+    @Operation(summary = "Gets N minimal values for many (file, N) pairs, parsing each file once.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Success, per-item errors in body")})
+    @PostMapping("/find-nth-min/bulk")
+    public ResponseEntity<List<BulkResult>> getNthMinimalBulk(@RequestBody final List<BulkQuery> queries,
+                                                              @RequestParam(required = false)
+                                                              final Long timeoutMs) {
+
+        ScanProgress progress = timeoutMs != null && timeoutMs > 0 ? new ScanProgress().withTimeout(timeoutMs) : null;
+
+        try (ScanProgress ignored = progress != null ? progress.attach() : null) {
+            List<BulkResult> results = service.getNthMinimalBulk(queries.stream()
+                    .map(query -> new BulkQuery(trim(query.fileLink()), trim(query.n()), query.sheet(),
+                            query.column()))
+                    .toList());
+
+            return ResponseEntity.ok(results);
+        }
+    }
+
+    private ResponseEntity<Long> findTraced(String fileLink, String N, ColumnSelector selector, boolean distinct,
+                                            boolean debug, ScanProgress progress) {
+        return traced(debug, progress, () -> service.getNthMinimal(fileLink.trim(), N.trim(), selector, distinct));
+    }
+
+    private <T> ResponseEntity<T> traced(boolean debug, ScanProgress progress, Supplier<T> query) {
+        try (QueryTrace trace = QueryTrace.start(debug);
+             ScanProgress ignored = progress != null ? progress.attach() : null) {
+            // Запрос мог быть отменён или просрочен, пока ждал в очереди
+            ScanProgress.checkCurrent();
+            T result = query.get();
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(SERVER_TIMING, trace.serverTiming());
+            if (debug) {
+                response.header(QUERY_DEBUG, trace.details());
+            }
+            return response.body(result);
+        }
+    }
 
-        return ResponseEntity.ok(nthMinimal);
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
     }
 }
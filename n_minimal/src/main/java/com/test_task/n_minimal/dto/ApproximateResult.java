@@ -0,0 +1,12 @@
+package com.test_task.n_minimal.dto;
+
+/**
+ * Приближённый N-й минимум по квантильному скетчу
+ *
+ * @param value     значение, ранг которого среди всех чисел столбца приблизительно N
+ * @param n         запрошенное N
+ * @param count     сколько чисел прочитано из столбца
+ * @param rankError на сколько позиций истинный ранг value может отличаться от N, с вероятностью 99%
+ */
+public record ApproximateResult(long value, long n, long count, long rankError) {
+}
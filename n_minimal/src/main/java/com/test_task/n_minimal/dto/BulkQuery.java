@@ -0,0 +1,17 @@
+package com.test_task.n_minimal.dto;
+
+/**
+ * Одна пара (файл, N) в массовом запросе
+ *
+ * @param fileLink ссылка на локальный файл
+ * @param n        требуемое минимальное число
+ * @param sheet    имя или номер листа с 1, null - первый лист
+ * @param column   буква или номер столбца с 1, null - первый столбец
+ */
+public record BulkQuery(String fileLink, String n, String sheet, String column) {
+
+    // Первый столбец первого листа
+    public BulkQuery(String fileLink, String n) {
+        this(fileLink, n, null, null);
+    }
+}
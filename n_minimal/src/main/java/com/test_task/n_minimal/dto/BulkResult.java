@@ -0,0 +1,20 @@
+package com.test_task.n_minimal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат одной пары массового запроса: либо значение, либо HTTP-статус и текст ошибки,
+ * такие же, как вернул бы одиночный запрос
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkResult(String fileLink, String n, String sheet, String column, Long value, Integer status,
+                         String error) {
+
+    public static BulkResult success(BulkQuery query, long value) {
+        return new BulkResult(query.fileLink(), query.n(), query.sheet(), query.column(), value, null, null);
+    }
+
+    public static BulkResult failure(BulkQuery query, int status, String error) {
+        return new BulkResult(query.fileLink(), query.n(), query.sheet(), query.column(), null, status, error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.test_task.n_minimal.dto;
+
+/**
+ * Запрос на фоновое вычисление N-го минимума
+ */
+public record JobRequest(String fileLink, String n) {
+}
@@ -0,0 +1,8 @@
+package com.test_task.n_minimal.dto;
+
+/**
+ * Состояние фоновой задачи
+ */
+public enum JobState {
+    QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+}
@@ -0,0 +1,13 @@
+package com.test_task.n_minimal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Состояние фоновой задачи: прогресс разбора, а после завершения значение
+ * либо HTTP-статус и текст ошибки, такие же, как вернул бы синхронный запрос.
+ * estimatedRows отсутствует, если размерность листа не указана в файле.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobStatus(String id, String fileLink, String n, JobState state, long rowsProcessed,
+                        Long estimatedRows, Long value, Integer status, String error) {
+}
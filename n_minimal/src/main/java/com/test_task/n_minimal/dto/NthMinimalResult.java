@@ -0,0 +1,22 @@
+package com.test_task.n_minimal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат для одного N в пакетном запросе: либо значение, либо текст ошибки
+ *
+ * @param n     запрошенное N в том виде, в каком оно пришло
+ * @param value значение N-го минимального числа
+ * @param error текст ошибки, если значение получить нельзя
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NthMinimalResult(String n, Long value, String error) {
+
+    public static NthMinimalResult success(String n, long value) {
+        return new NthMinimalResult(n, value, null);
+    }
+
+    public static NthMinimalResult failure(String n, String error) {
+        return new NthMinimalResult(n, null, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.test_task.n_minimal.dto;
+
+import java.util.List;
+
+/**
+ * Уникальные значения столбца в диапазоне [from, to]
+ *
+ * @param from   начало диапазона включительно
+ * @param to     конец диапазона включительно
+ * @param count  сколько уникальных значений в диапазоне
+ * @param values сами значения по возрастанию, не больше запрошенного limit
+ */
+public record RangeResult(long from, long to, int count, List<Long> values) {
+}
@@ -0,0 +1,7 @@
+package com.test_task.n_minimal.exception;
+
+public class JobNotFoundException extends RuntimeException {
+    public JobNotFoundException(String id) {
+        super("Job not found: " + id);
+    }
+}
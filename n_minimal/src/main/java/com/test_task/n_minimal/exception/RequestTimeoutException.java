@@ -0,0 +1,7 @@
+package com.test_task.n_minimal.exception;
+
+public class RequestTimeoutException extends RuntimeException {
+    public RequestTimeoutException(long timeoutMillis) {
+        super("Request timed out after " + timeoutMillis + " ms");
+    }
+}
@@ -0,0 +1,56 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Обработка отказов долгих запросов: переполненная очередь и превышение времени ответа.
+ */
+@ControllerAdvice
+public class AsyncExceptionHandlingService {
+
+    static final String REQUEST_TIMED_OUT = "Request timed out";
+
+    private final Logger logger = LoggerFactory.getLogger(AsyncExceptionHandlingService.class);
+
+    /**
+     * @param e отказ из-за переполненной очереди разбора
+     * @return статус ответа 503 с заголовком Retry-After и текстом ошибки
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleOverloaded(ServiceOverloadedException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    /**
+     * @param e превышение времени ответа асинхронного запроса
+     * @return статус ответа 503 и текст ошибки
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeout(TimeoutException e) {
+        logger.warn(REQUEST_TIMED_OUT);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(REQUEST_TIMED_OUT);
+    }
+
+    /**
+     * @param e превышение срока запроса, заданного параметром timeoutMs
+     * @return статус ответа 503 и текст ошибки
+     */
+    @ExceptionHandler(RequestTimeoutException.class)
+    public ResponseEntity<String> handleRequestTimeout(RequestTimeoutException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -35,13 +35,13 @@ public class ExceptionHandlingService {
 
     /**
      * Метод обрабатывает исключения {@link LinkNotFoundException}, {@link ValueNNotFoundException},
-     * возникающие когда ссылка или значение N не переданы.
+     * возникающие когда ссылка или значение N не переданы, и {@link JobNotFoundException} для неизвестной задачи.
      *
      * @param e выбрасываемое исключение
      * @return статус ответа 404 и текст ошибки
      */
     @ResponseBody
-    @ExceptionHandler({LinkNotFoundException.class, ValueNNotFoundException.class})
+    @ExceptionHandler({LinkNotFoundException.class, ValueNNotFoundException.class, JobNotFoundException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public String handleNotFoundException(Exception e) {
         logger.error(e.getMessage(), e);
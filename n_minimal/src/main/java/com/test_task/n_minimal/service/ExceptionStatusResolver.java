@@ -0,0 +1,33 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.exception.*;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Сопоставление исключений HTTP-статусам, совпадающее с {@link ExceptionHandlingService}.
+ * Используется там, где ошибки отдаются по элементам, а не всем ответом.
+ */
+final class ExceptionStatusResolver {
+
+    private ExceptionStatusResolver() {
+    }
+
+    /**
+     * @param e исключение
+     * @return 400 для ошибок обработки, 404 для непереданных значений, 503 для отказов и таймаутов, 500 для остальных
+     */
+    static HttpStatus resolve(Throwable e) {
+        if (e instanceof LinkProcessingException || e instanceof ValueNProcessingException
+                || e instanceof FileProcessingException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (e instanceof LinkNotFoundException || e instanceof ValueNNotFoundException
+                || e instanceof JobNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof RequestTimeoutException || e instanceof ServiceOverloadedException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,40 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.exception.LinkProcessingException;
+import com.test_task.n_minimal.util.ColumnSelector;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Ключ содержимого файла: канонический путь, размер и время изменения, а также выбранные лист и столбец.
+ * Перезапись файла меняет размер или время, и старые записи кеша перестают находиться.
+ *
+ * @param sheet  имя или номер листа как в запросе, null - первый лист
+ * @param column индекс столбца с 0
+ */
+public record FileKey(String canonicalPath, long size, long lastModified, String sheet, int column) {
+
+    // Первый столбец первого листа
+    public FileKey(String canonicalPath, long size, long lastModified) {
+        this(canonicalPath, size, lastModified, null, 0);
+    }
+
+    public static FileKey of(String link) {
+        return of(link, ColumnSelector.FIRST);
+    }
+
+    public static FileKey of(String link, ColumnSelector selector) {
+        File file = new File(link);
+        try {
+            return new FileKey(file.getCanonicalPath(), file.length(), file.lastModified(), selector.sheet(),
+                    selector.columnIndex());
+        } catch (IOException e) {
+            throw new LinkProcessingException("Error resolving file path: " + e.getMessage());
+        }
+    }
+
+    public boolean isFirstColumn() {
+        return sheet == null && column == 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.dto.JobState;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.util.ScanProgress;
+
+import java.util.concurrent.Future;
+
+/**
+ * Фоновая задача вычисления N-го минимума. Переходы состояния синхронизированы на задаче,
+ * прогресс читается без блокировок из {@link ScanProgress}.
+ */
+final class Job {
+
+    private final String id;
+    private final String fileLink;
+    private final String n;
+    private final ScanProgress progress = new ScanProgress();
+
+    private JobState state = JobState.QUEUED;
+    private Long value;
+    private Integer status;
+    private String error;
+    private long finishedAtNanos;
+    private Future<?> future;
+
+    Job(String id, String fileLink, String n) {
+        this.id = id;
+        this.fileLink = fileLink;
+        this.n = n;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getFileLink() {
+        return fileLink;
+    }
+
+    String getN() {
+        return n;
+    }
+
+    ScanProgress getProgress() {
+        return progress;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // Задачу, отменённую в очереди, не запускаем
+    synchronized boolean start() {
+        if (state != JobState.QUEUED) {
+            return false;
+        }
+        state = JobState.RUNNING;
+        return true;
+    }
+
+    synchronized void succeed(long value) {
+        if (state == JobState.RUNNING) {
+            this.value = value;
+            finish(JobState.SUCCEEDED);
+        }
+    }
+
+    synchronized void fail(int status, String error) {
+        if (state == JobState.RUNNING) {
+            this.status = status;
+            this.error = error;
+            finish(JobState.FAILED);
+        }
+    }
+
+    /**
+     * Отменяет задачу в очереди сразу, а выполняющуюся - в ближайшей точке проверки разбора.
+     */
+    synchronized void cancel() {
+        if (isFinished()) {
+            return;
+        }
+        progress.cancel();
+        if (future != null) {
+            future.cancel(false);
+        }
+        finish(JobState.CANCELLED);
+    }
+
+    synchronized boolean isExpired(long nowNanos, long ttlNanos) {
+        return isFinished() && nowNanos - finishedAtNanos >= ttlNanos;
+    }
+
+    synchronized JobStatus toStatus() {
+        long estimatedRows = progress.getEstimatedRows();
+        return new JobStatus(id, fileLink, n, state, progress.getRowsProcessed(),
+                estimatedRows >= 0 ? estimatedRows : null, value, status, error);
+    }
+
+    private boolean isFinished() {
+        return state == JobState.SUCCEEDED || state == JobState.FAILED || state == JobState.CANCELLED;
+    }
+
+    private void finish(JobState state) {
+        this.state = state;
+        finishedAtNanos = System.nanoTime();
+    }
+}
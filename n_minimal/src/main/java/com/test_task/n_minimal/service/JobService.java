@@ -0,0 +1,105 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.exception.JobNotFoundException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
+import com.test_task.n_minimal.util.ScanProgress;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Фоновые задачи для долгих разборов: запуск в ограниченном пуле, прогресс, отмена.
+ * Завершённые задачи хранятся n-minimal.jobs.ttl и удаляются при следующих обращениях.
+ */
+@Service
+public class JobService {
+
+    static final String TOO_MANY_JOBS = "Too many jobs in queue, try again later";
+
+    private final NMinimalService service;
+    private final ExecutorService jobExecutor;
+    private final NMinimalProperties properties;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public JobService(NMinimalService service, @Qualifier("jobExecutor") ExecutorService jobExecutor,
+                      NMinimalProperties properties) {
+        this.service = service;
+        this.jobExecutor = jobExecutor;
+        this.properties = properties;
+    }
+
+    /**
+     * Ставит запрос в очередь пула задач.
+     *
+     * @throws ServiceOverloadedException если очередь заполнена
+     */
+    public JobStatus submit(String fileLink, String N) {
+        evictExpired();
+
+        Job job = new Job(UUID.randomUUID().toString(), fileLink, N);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(jobExecutor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ServiceOverloadedException(TOO_MANY_JOBS, properties.getJobs().getRetryAfter().toSeconds());
+        }
+        return job.toStatus();
+    }
+
+    /**
+     * @throws JobNotFoundException если задачи нет или её результат уже удалён по TTL
+     */
+    public JobStatus get(String id) {
+        evictExpired();
+        return find(id).toStatus();
+    }
+
+    /**
+     * Отменяет задачу. Завершённая задача не меняется.
+     *
+     * @throws JobNotFoundException если задачи нет или её результат уже удалён по TTL
+     */
+    public JobStatus cancel(String id) {
+        evictExpired();
+        Job job = find(id);
+        job.cancel();
+        return job.toStatus();
+    }
+
+    private Job find(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new JobNotFoundException(id);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        if (!job.start()) {
+            return;
+        }
+
+        try (ScanProgress ignored = job.getProgress().attach()) {
+            job.succeed(service.getNthMinimal(job.getFileLink(), job.getN()));
+        } catch (CancellationException e) {
+            job.cancel();
+        } catch (RuntimeException e) {
+            job.fail(ExceptionStatusResolver.resolve(e).value(), e.getMessage());
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        long ttl = properties.getJobs().getTtl().toNanos();
+        jobs.values().removeIf(job -> job.isExpired(now, ttl));
+    }
+}
@@ -1,9 +1,17 @@
 package com.test_task.n_minimal.service;
 
+import com.test_task.n_minimal.dto.ApproximateResult;
+import com.test_task.n_minimal.dto.BulkQuery;
+import com.test_task.n_minimal.dto.BulkResult;
+import com.test_task.n_minimal.dto.NthMinimalResult;
+import com.test_task.n_minimal.dto.RangeResult;
 import com.test_task.n_minimal.exception.LinkNotFoundException;
 import com.test_task.n_minimal.exception.LinkProcessingException;
 import com.test_task.n_minimal.exception.ValueNNotFoundException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
+import com.test_task.n_minimal.util.ColumnSelector;
+
+import java.util.List;
 
 public interface NMinimalService {
     /**
@@ -17,7 +25,142 @@ public interface NMinimalService {
      * @throws LinkNotFoundException     если ссылка не передана
      * @throws LinkProcessingException   если ссылка не валидна
      */
-    Long getNthMinimal(final String fileLink, final String N) throws LinkNotFoundException, LinkProcessingException
-            , ValueNNotFoundException, ValueNProcessingException;
+    default Long getNthMinimal(final String fileLink, final String N) throws LinkNotFoundException,
+            LinkProcessingException, ValueNNotFoundException, ValueNProcessingException {
+        return getNthMinimal(fileLink, N, ColumnSelector.FIRST);
+    }
+
+    /**
+     * Отдаёт N число из выбранных листа и столбца локального файла.
+     * @param fileLink ссылка на локальный файл
+     * @param N        требуемое минимальное число
+     * @param selector лист и столбец
+     * @return значение N-го минимального числа
+     * @throws ValueNNotFoundException   если N не передано
+     * @throws ValueNProcessingException если N не валидно
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    default Long getNthMinimal(final String fileLink, final String N, final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException {
+        return getNthMinimal(fileLink, N, selector, true);
+    }
+
+    /**
+     * Отдаёт N число из выбранных листа и столбца, с повторами или без.
+     * Без повторов ответ берётся из кеша отсортированных уникальных значений, если он включён.
+     * С повторами N - ранг среди всех чисел столбца, и столбец каждый раз читается заново.
+     * @param fileLink ссылка на локальный файл
+     * @param N        требуемое минимальное число
+     * @param selector лист и столбец
+     * @param distinct true - повторы отбрасываются, false - учитываются
+     * @return значение N-го минимального числа
+     * @throws ValueNNotFoundException   если N не передано
+     * @throws ValueNProcessingException если N не валидно или больше количества чисел
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    Long getNthMinimal(final String fileLink, final String N, final ColumnSelector selector, final boolean distinct)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Отдаёт приближённое N-е минимальное число по квантильному скетчу столбца.
+     * Скетч заполняется за один проход чтения и кешируется; в отличие от точного режима
+     * повторы значений учитываются, то есть N - ранг среди всех чисел столбца.
+     * @param fileLink ссылка на локальный файл
+     * @param N        требуемый ранг
+     * @param selector лист и столбец
+     * @return оценка значения и граница ошибки её ранга
+     * @throws ValueNNotFoundException   если N не передано
+     * @throws ValueNProcessingException если N не валидно или больше количества чисел
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    ApproximateResult getApproximateNthMinimal(final String fileLink, final String N, final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Отдаёт N-е максимальное уникальное число. Этот и следующие запросы к столбцу работают
+     * на одном разобранном и отсортированном столбце из кеша: N-й максимум и процентиль
+     * берутся по индексу, счёт до X и диапазон - двоичным поиском.
+     * @param fileLink ссылка на локальный файл
+     * @param N        требуемое максимальное число
+     * @param selector лист и столбец
+     * @return значение N-го максимального числа
+     * @throws ValueNNotFoundException   если N не передано
+     * @throws ValueNProcessingException если N не валидно или больше количества уникальных чисел
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    Long getNthMaximal(final String fileLink, final String N, final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Отдаёт процентиль уникальных чисел столбца по методу ближайшего ранга.
+     * @param fileLink   ссылка на локальный файл
+     * @param percentile процентиль от 0 до 100
+     * @param selector   лист и столбец
+     * @return наименьшее значение, не меньше которого percentile процентов уникальных чисел
+     * @throws ValueNNotFoundException   если процентиль не передан
+     * @throws ValueNProcessingException если процентиль не число или вне 0..100
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    Long getPercentile(final String fileLink, final String percentile, final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Считает уникальные числа столбца, не превышающие X.
+     * @param fileLink ссылка на локальный файл
+     * @param x        граница включительно
+     * @param selector лист и столбец
+     * @return количество уникальных чисел не больше X
+     * @throws ValueNNotFoundException   если X не передано
+     * @throws ValueNProcessingException если X не целое число
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    Integer countAtMost(final String fileLink, final String x, final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Отдаёт уникальные числа столбца между A и B включительно.
+     * @param fileLink ссылка на локальный файл
+     * @param from     начало диапазона
+     * @param to       конец диапазона
+     * @param limit    сколько значений вернуть, количество считается по всему диапазону
+     * @param selector лист и столбец
+     * @return количество и первые limit значений диапазона по возрастанию
+     * @throws ValueNNotFoundException   если граница не передана
+     * @throws ValueNProcessingException если граница не целое число, начало больше конца или limit отрицателен
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    RangeResult getRange(final String fileLink, final String from, final String to, final int limit,
+                         final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException, ValueNProcessingException;
+
+    /**
+     * Отдаёт несколько N-х минимальных чисел из одного файла за один разбор.
+     * Ошибки отдельных N возвращаются в их элементах и не прерывают весь запрос.
+     * @param fileLink ссылка на локальный файл
+     * @param values   список требуемых N
+     * @param selector лист и столбец
+     * @return результаты в порядке запрошенных N
+     * @throws LinkNotFoundException     если ссылка не передана
+     * @throws LinkProcessingException   если ссылка не валидна или нет такого листа или столбца
+     */
+    List<NthMinimalResult> getNthMinimalBatch(final String fileLink, final List<String> values,
+                                              final ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException;
+
+    /**
+     * Отдаёт N-е минимальные числа для набора пар (файл, N).
+     * Пары группируются по файлу и столбцу, каждый столбец разбирается один раз, разные - параллельно.
+     * Срок запроса из {@link com.test_task.n_minimal.util.ScanProgress} текущего потока действует для всех пар.
+     * @param queries пары (файл, N) с необязательными листом и столбцом
+     * @return результаты в порядке пар, с HTTP-статусом и текстом ошибки для неудачных
+     */
+    List<BulkResult> getNthMinimalBulk(final List<BulkQuery> queries);
 
 }
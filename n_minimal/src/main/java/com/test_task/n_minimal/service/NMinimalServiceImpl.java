@@ -1,40 +1,490 @@
 package com.test_task.n_minimal.service;
 
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.ApproximateResult;
+import com.test_task.n_minimal.dto.BulkQuery;
+import com.test_task.n_minimal.dto.BulkResult;
+import com.test_task.n_minimal.dto.NthMinimalResult;
+import com.test_task.n_minimal.dto.RangeResult;
 import com.test_task.n_minimal.exception.LinkNotFoundException;
 import com.test_task.n_minimal.exception.LinkProcessingException;
+import com.test_task.n_minimal.exception.RequestTimeoutException;
 import com.test_task.n_minimal.exception.ValueNNotFoundException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
+import com.test_task.n_minimal.service.QueryMetrics.Stage;
+import com.test_task.n_minimal.util.ColumnSelector;
+import com.test_task.n_minimal.util.KllSketch;
+import com.test_task.n_minimal.util.LongColumn;
+import com.test_task.n_minimal.util.NthMinimalHeap;
+import com.test_task.n_minimal.util.QueryTrace;
+import com.test_task.n_minimal.util.ScanProgress;
+import com.test_task.n_minimal.util.SortedColumn;
 import com.test_task.n_minimal.util.Sorter;
 import com.test_task.n_minimal.util.Validator;
 import com.test_task.n_minimal.util.XlsxToListConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class NMinimalServiceImpl implements NMinimalService {
 
+    // При таких N значения сразу идут в кучу размера N, и столбец не собирается в память
+    private static final int FUSED_SELECTION_MAX_N = 1024;
+
+    // Как часто запрос, ждущий чужое чтение, проверяет свою отмену и срок
+    private static final long AWAIT_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     private final Validator validator;
     private final XlsxToListConverter converter;
     private final Sorter sorter;
+    private final SortedColumnCache cache;
+    private final SortedColumnIndex index;
+    private final QuantileSketchCache sketches;
+    private final int sketchK;
+    private final Executor bulkExecutor;
+    private final QueryMetrics metrics;
+
+    // Чтения файлов, выполняемые прямо сейчас; блокировка только на уровне сегмента ConcurrentHashMap
+    private final ConcurrentMap<Flight, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Чтение файла, результат которого можно отдать одновременному такому же запросу.
+     *
+     * @param mode способ чтения: sorted, heap, select или sketch
+     */
+    private record Flight(FileKey file, String mode, int n, boolean distinct) {
+
+        Flight(FileKey file, String mode) {
+            this(file, mode, 0, false);
+        }
+    }
 
-    public NMinimalServiceImpl(Validator validator, XlsxToListConverter converter, Sorter sorter) {
+    public NMinimalServiceImpl(Validator validator, XlsxToListConverter converter, Sorter sorter,
+                               SortedColumnCache cache, SortedColumnIndex index, QuantileSketchCache sketches,
+                               NMinimalProperties properties,
+                               @Qualifier("bulkExecutor") Executor bulkExecutor, QueryMetrics metrics) {
         this.validator = validator;
         this.converter = converter;
         this.sorter = sorter;
+        this.cache = cache;
+        this.index = index;
+        this.sketches = sketches;
+        this.sketchK = properties.getSketch().getK();
+        this.bulkExecutor = bulkExecutor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Long getNthMinimal(String fileLink, String N, ColumnSelector selector, boolean distinct)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException,
+            ValueNProcessingException {
+
+        long allocatedBefore = metrics.allocatedBytes();
+        try {
+            metrics.time(Stage.VALIDATE, () -> {
+                validator.validateInput(fileLink, N);
+                selector.columnIndex();
+            });
+            int valueN = Integer.parseInt(N);
+            metrics.recordFileBytes(new File(fileLink).length());
+
+            // С кешем или индексом отсортированный столбец отвечает на любые N по индексу.
+            // Там хранятся только уникальные значения, поэтому запрос с повторами читает файл
+            // Без попадания столбец сортируется, только когда кеш его допускает, иначе файл читается потоково
+            FileKey key = fileKey(fileLink, selector);
+            boolean sortable = distinct && (cache.isEnabled() || index.isEnabled());
+            if (sortable) {
+                SortedColumn sorted = findSortedColumn(key, fileLink, selector);
+                if (sorted != null) {
+                    metrics.recordValuesKept(sorted.size());
+                    return metrics.time(Stage.SELECT, () -> sorted.nthMinimal(valueN));
+                }
+            }
+
+            // Одинаковые одновременные запросы читают файл один раз и получают один ответ
+            if (valueN <= FUSED_SELECTION_MAX_N) {
+                return coalesce(new Flight(key, "heap", valueN, distinct),
+                        () -> selectWithHeap(key, fileLink, selector, valueN, distinct, sortable));
+            }
+            return coalesce(new Flight(key, "select", valueN, distinct),
+                    () -> selectFromColumn(key, fileLink, selector, valueN, distinct, sortable));
+        } finally {
+            metrics.recordAllocatedBytes(allocatedBefore);
+        }
+    }
+
+    // Чтение и выбор совмещены, поэтому время кучи входит в этап READ
+    private Long selectWithHeap(FileKey key, String fileLink, ColumnSelector selector, int valueN,
+                                boolean distinct, boolean sortable) {
+        traceStrategy(distinct ? "fused-heap" : "fused-heap-all");
+        NthMinimalHeap heap = new NthMinimalHeap(valueN, distinct);
+        long count = metrics.time(Stage.READ, () -> converter.read(fileLink, selector, heap));
+        metrics.recordValuesRead(count);
+        metrics.recordValuesKept(heap.size());
+        if (sortable) {
+            cache.recordMiss(key, count);
+        }
+        validator.validateNWithValuesCount(count, valueN);
+        return heap.nthMinimal();
+    }
+
+    private Long selectFromColumn(FileKey key, String fileLink, ColumnSelector selector, int valueN,
+                                  boolean distinct, boolean sortable) {
+        traceStrategy(distinct ? "introselect" : "introselect-all");
+        LongColumn unsorted = metrics.time(Stage.READ, () -> converter.convertToColumn(fileLink, selector));
+        metrics.recordValuesRead(unsorted.size());
+        metrics.recordValuesKept(unsorted.size());
+        if (sortable) {
+            cache.recordMiss(key, unsorted.size());
+        }
+        validator.validateNWithColumnSize(unsorted, valueN);
+
+        return metrics.time(Stage.SELECT, () -> sorter.select(unsorted, valueN, distinct));
+    }
+
+    @Override
+    public ApproximateResult getApproximateNthMinimal(String fileLink, String N, ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException,
+            ValueNProcessingException {
+
+        long allocatedBefore = metrics.allocatedBytes();
+        try {
+            metrics.time(Stage.VALIDATE, () -> {
+                validator.validateInput(fileLink, N);
+                selector.columnIndex();
+            });
+            int valueN = Integer.parseInt(N);
+            metrics.recordFileBytes(new File(fileLink).length());
+
+            FileKey key = fileKey(fileLink, selector);
+            KllSketch sketch = metrics.time(Stage.CACHE, () -> sketches.get(key));
+            if (sketch != null) {
+                traceStrategy("sketch-cache");
+            } else {
+                // Чтение и заполнение скетча совмещены, как у кучи в точном режиме
+                sketch = coalesce(new Flight(key, "sketch"), () -> {
+                    traceStrategy("sketch");
+                    KllSketch filled = new KllSketch(sketchK);
+                    long count = metrics.time(Stage.READ, () -> converter.read(fileLink, selector, filled));
+                    metrics.recordValuesRead(count);
+                    sketches.put(key, filled);
+                    return filled;
+                });
+            }
+            metrics.recordValuesKept(sketch.retained());
+            validator.validateNWithValuesCount(sketch.count(), valueN);
+
+            KllSketch selected = sketch;
+            long value = metrics.time(Stage.SELECT, () -> selected.nthSmallest(valueN));
+            return new ApproximateResult(value, valueN, sketch.count(), sketch.rankError());
+        } finally {
+            metrics.recordAllocatedBytes(allocatedBefore);
+        }
+    }
+
+    @Override
+    public Long getNthMaximal(String fileLink, String N, ColumnSelector selector) throws LinkNotFoundException,
+            LinkProcessingException, ValueNNotFoundException, ValueNProcessingException {
+
+        int valueN = validator.validateN(N);
+        SortedColumn sorted = getValidatedSortedColumn(fileLink, selector);
+        return metrics.time(Stage.SELECT, () -> sorted.nthMaximal(valueN));
+    }
+
+    @Override
+    public Long getPercentile(String fileLink, String percentile, ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException,
+            ValueNProcessingException {
+
+        double value = validator.validatePercentile(percentile);
+        SortedColumn sorted = getValidatedSortedColumn(fileLink, selector);
+        return metrics.time(Stage.SELECT, () -> sorted.percentile(value));
+    }
+
+    @Override
+    public Integer countAtMost(String fileLink, String x, ColumnSelector selector) throws LinkNotFoundException,
+            LinkProcessingException, ValueNNotFoundException, ValueNProcessingException {
+
+        long bound = validator.validateValue(x, "X");
+        SortedColumn sorted = getValidatedSortedColumn(fileLink, selector);
+        return (int) metrics.time(Stage.SELECT, () -> sorted.countAtMost(bound));
+    }
+
+    @Override
+    public RangeResult getRange(String fileLink, String from, String to, int limit, ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException, ValueNNotFoundException,
+            ValueNProcessingException {
+
+        long start = validator.validateValue(from, "From");
+        long end = validator.validateValue(to, "To");
+        validator.validateRange(start, end);
+        validator.validateLimit(limit);
+        SortedColumn sorted = getValidatedSortedColumn(fileLink, selector);
+
+        return metrics.time(Stage.SELECT, () -> {
+            int first = sorted.lowerBound(start);
+            int last = sorted.upperBound(end);
+            List<Long> values = new ArrayList<>(Math.min(last - first, limit));
+            for (int i = first; i < last && values.size() < limit; i++) {
+                values.add(sorted.get(i));
+            }
+            return new RangeResult(start, end, last - first, values);
+        });
+    }
+
+    // Проверяет ссылку и столбец и отдаёт отсортированный столбец, из кеша если он уже разобран
+    private SortedColumn getValidatedSortedColumn(String fileLink, ColumnSelector selector) {
+        metrics.time(Stage.VALIDATE, () -> {
+            validator.validateLink(fileLink);
+            selector.columnIndex();
+        });
+        metrics.recordFileBytes(new File(fileLink).length());
+        SortedColumn sorted = getSortedColumn(fileLink, selector);
+        metrics.recordValuesKept(sorted.size());
+        return sorted;
+    }
+
+    @Override
+    public List<NthMinimalResult> getNthMinimalBatch(String fileLink, List<String> values,
+                                                     ColumnSelector selector)
+            throws LinkNotFoundException, LinkProcessingException {
+
+        validator.validateLink(fileLink);
+
+        // Файл разбирается и сортируется один раз для всех N
+        SortedColumn sorted = getSortedColumn(fileLink, selector);
+
+        List<NthMinimalResult> results = new ArrayList<>(values.size());
+        for (String N : values) {
+            try {
+                int valueN = validator.validateN(N);
+                results.add(NthMinimalResult.success(N, sorted.nthMinimal(valueN)));
+            } catch (ValueNNotFoundException | ValueNProcessingException e) {
+                results.add(NthMinimalResult.failure(N, e.getMessage()));
+            }
+        }
+        return results;
     }
 
     @Override
-    public Long getNthMinimal(String fileLink, String N) throws LinkNotFoundException, LinkProcessingException,
-            ValueNNotFoundException, ValueNProcessingException {
+    public List<BulkResult> getNthMinimalBulk(List<BulkQuery> queries) {
+        // Группируем позиции запросов по столбцу файла, чтобы каждый столбец разбирался один раз
+        Map<BulkColumn, List<Integer>> positionsByColumn = new LinkedHashMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            BulkQuery query = queries.get(i);
+            BulkColumn column = new BulkColumn(query.fileLink(), new ColumnSelector(query.sheet(), query.column()));
+            positionsByColumn.computeIfAbsent(column, key -> new ArrayList<>()).add(i);
+        }
+
+        // Разные столбцы разбираются параллельно в ограниченном пуле. Задача сразу отвечает на все N
+        // своего столбца, поэтому отсортированный столбец не переживает её
+        ScanProgress progress = ScanProgress.current();
+        BulkResult[] results = new BulkResult[queries.size()];
+        CompletableFuture<?>[] tasks = positionsByColumn.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(
+                        () -> answerBulk(entry.getKey(), entry.getValue(), queries, results, progress), bulkExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).join();
+        return Arrays.asList(results);
+    }
+
+    private void answerBulk(BulkColumn column, List<Integer> positions, List<BulkQuery> queries,
+                            BulkResult[] results, ScanProgress progress) {
+        // Срок массового запроса действует и в потоках пула
+        try (ScanProgress ignored = progress != null && ScanProgress.current() != progress ? progress.attach() : null) {
+            SortedColumn sorted;
+            try {
+                ScanProgress.checkCurrent();
+                validator.validateLink(column.fileLink());
+                sorted = getSortedColumn(column.fileLink(), column.selector());
+            } catch (RuntimeException e) {
+                // Ошибка файла относится ко всем его N
+                for (int position : positions) {
+                    results[position] = failure(queries.get(position), e);
+                }
+                return;
+            }
+
+            for (int position : positions) {
+                BulkQuery query = queries.get(position);
+                try {
+                    int valueN = validator.validateN(query.n());
+                    results[position] = BulkResult.success(query, sorted.nthMinimal(valueN));
+                } catch (RuntimeException e) {
+                    results[position] = failure(query, e);
+                }
+            }
+        }
+    }
+
+    private static BulkResult failure(BulkQuery query, Throwable e) {
+        return BulkResult.failure(query, ExceptionStatusResolver.resolve(e).value(), e.getMessage());
+    }
+
+    /**
+     * Отсортированный столбец для N-го минимума: из кеша или индекса, а разбором и сортировкой - только
+     * если кеш допускает столбец ({@link SortedColumnCache#admit}).
+     *
+     * @return null, если столбец выгоднее прочитать потоково
+     */
+    private SortedColumn findSortedColumn(FileKey key, String fileLink, ColumnSelector selector) {
+        SortedColumn sorted = metrics.time(Stage.CACHE, () -> cache.get(key));
+        if (sorted != null) {
+            traceStrategy("cache");
+            return sorted;
+        }
+
+        if (index.isEnabled()) {
+            sorted = metrics.time(Stage.INDEX, () -> index.load(key));
+            if (sorted != null) {
+                traceStrategy("index");
+                cache.put(key, sorted);
+                return sorted;
+            }
+        }
 
-        validator.validateInput(fileLink, N);
-        List<Long> unsorted = converter.convert(fileLink);
+        // Индекс уже проверен выше
+        return cache.admit(key, index.isEnabled()) ? loadSortedColumn(key, fileLink, selector, false) : null;
+    }
+
+    /**
+     * Отсортированный столбец файла: из кеша, из индекса на диске или разбором файла.
+     */
+    private SortedColumn getSortedColumn(String fileLink, ColumnSelector selector) {
+        FileKey key = fileKey(fileLink, selector);
+        SortedColumn sorted = metrics.time(Stage.CACHE, () -> cache.get(key));
+
+        if (sorted != null) {
+            traceStrategy("cache");
+            return sorted;
+        }
+        return loadSortedColumn(key, fileLink, selector, true);
+    }
+
+    private SortedColumn loadSortedColumn(FileKey key, String fileLink, ColumnSelector selector, boolean checkIndex) {
+        return coalesce(new Flight(key, "sorted"), () -> {
+            SortedColumn sorted = readSortedColumn(key, fileLink, selector, checkIndex);
+            cache.put(key, sorted);
+            return sorted;
+        });
+    }
+
+    /**
+     * Одновременные одинаковые чтения не разбирают файл повторно: первый запрос
+     * выполняет чтение, остальные ждут его результат.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(Flight flight, Supplier<T> read) {
+        CompletableFuture<T> reading = new CompletableFuture<>();
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(flight, reading);
+        if (running != null) {
+            traceStrategy("coalesced");
+            try {
+                return await(running);
+            } catch (CancellationException | RequestTimeoutException e) {
+                // Прервалось чужое чтение; если этот запрос ещё жив, читаем заново
+                ScanProgress.checkCurrent();
+                return coalesce(flight, read);
+            }
+        }
+
+        try {
+            T result = read.get();
+            reading.complete(result);
+            return result;
+        } catch (Throwable e) {
+            reading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, reading);
+        }
+    }
+
+    private SortedColumn readSortedColumn(FileKey key, String fileLink, ColumnSelector selector,
+                                          boolean checkIndex) {
+        SortedColumn sorted = null;
 
-        int valueN = Integer.parseInt(N);
-        validator.validateNWithListSize(unsorted, valueN);
-        List<Long> sorted = sorter.sort(unsorted);
+        if (checkIndex && index.isEnabled()) {
+            sorted = metrics.time(Stage.INDEX, () -> index.load(key));
+            traceStrategy("index");
+        }
+
+        if (sorted == null) {
+            traceStrategy("parse-sort");
+            LongColumn unsorted = metrics.time(Stage.READ, () -> converter.convertToColumn(fileLink, selector));
+            metrics.recordValuesRead(unsorted.size());
+            SortedColumn distinct = metrics.time(Stage.SORT, () -> sorter.sortDistinct(unsorted));
+            if (index.isEnabled()) {
+                metrics.time(Stage.INDEX, () -> index.store(key, distinct));
+            }
+            sorted = distinct;
+        }
+
+        return sorted;
+    }
+
+    // Столбец файла, по которому массовый запрос отвечает одной задачей
+    private record BulkColumn(String fileLink, ColumnSelector selector) {
+    }
+
+    // Запросы к одному листу по имени, номеру и без листа получают один ключ,
+    // а с ним общие кеш, индекс, скетч и совместное чтение
+    private FileKey fileKey(String fileLink, ColumnSelector selector) {
+        // Без листа список листов книги не читается
+        return FileKey.of(fileLink, selector.sheet() == null ? selector : converter.resolveSheet(fileLink, selector));
+    }
+
+    private static void traceStrategy(String strategy) {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) {
+            trace.setStrategy(strategy);
+        }
+    }
 
-        return sorted.get(valueN-1);
+    // Ожидающий запрос получает то же исключение, что и запрос, разбиравший файл,
+    // но ждёт не дольше собственного срока и прерывается при своей отмене
+    private static <T> T await(CompletableFuture<T> future) {
+        ScanProgress progress = ScanProgress.current();
+        try {
+            if (progress == null) {
+                return future.join();
+            }
+            while (true) {
+                progress.check();
+                long wait = progress.hasDeadline()
+                        ? Math.min(AWAIT_CHECK_NANOS, progress.remainingNanos())
+                        : AWAIT_CHECK_NANOS;
+                try {
+                    return future.get(wait, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Чтение ещё идёт, проверяем отмену и срок снова
+                }
+            }
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Request was interrupted");
+        }
     }
 }
@@ -0,0 +1,51 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.KllSketch;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU-кеш скетчей приближённого режима, ограниченный числом записей.
+ * Скетч занимает несколько килобайт независимо от размера файла,
+ * поэтому их можно держать намного больше, чем отсортированных столбцов.
+ */
+@Component
+public class QuantileSketchCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<FileKey, KllSketch> entries;
+
+    public QuantileSketchCache(NMinimalProperties properties) {
+        this.maxEntries = properties.getSketch().getCacheEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FileKey, KllSketch> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return скетч из кеша или null, если его там нет
+     */
+    public synchronized KllSketch get(FileKey key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(FileKey key, KllSketch sketch) {
+        if (maxEntries > 0) {
+            entries.put(key, sketch);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return entries.values().stream().mapToLong(KllSketch::sizeInBytes).sum();
+    }
+}
@@ -0,0 +1,137 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.util.QueryTrace;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Метрики этапов запроса N-го минимума.
+ * Таймеры и сводки Micrometer накапливают значения в LongAdder/DoubleAdder,
+ * поэтому параллельные запросы не конкурируют за общую блокировку.
+ * Если запрос трассируется, время этапа также попадает в его {@link QueryTrace}.
+ */
+@Component
+public class QueryMetrics {
+
+    /**
+     * Этапы обработки запроса, тег stage таймера n_minimal.stage.
+     * Чтение файла в Server-Timing делится конвертером на open и parse, поэтому своего имени там не имеет.
+     */
+    public enum Stage {
+        VALIDATE("validate"), CACHE("cache-lookup"), INDEX("index"), READ(null), SORT("sort"), SELECT("select");
+
+        private final String serverTimingName;
+
+        Stage(String serverTimingName) {
+            this.serverTimingName = serverTimingName;
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final DistributionSummary valuesRead;
+    private final DistributionSummary valuesKept;
+    private final DistributionSummary fileBytes;
+    private final DistributionSummary allocatedBytes;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public QueryMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("n_minimal.stage")
+                    .description("Время этапа обработки запроса")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        valuesRead = DistributionSummary.builder("n_minimal.values.read")
+                .description("Числа, прочитанные из первого столбца за один разбор файла")
+                .register(registry);
+        valuesKept = DistributionSummary.builder("n_minimal.values.kept")
+                .description("Значения, которые держались в памяти для выбора N-го минимума")
+                .register(registry);
+        fileBytes = DistributionSummary.builder("n_minimal.file.bytes")
+                .description("Размер файла запроса")
+                .baseUnit("bytes")
+                .register(registry);
+        allocatedBytes = DistributionSummary.builder("n_minimal.allocated.bytes")
+                .description("Память, выделенная потоком запроса")
+                .baseUnit("bytes")
+                .register(registry);
+
+        threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    public <T> T time(Stage stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public long time(Stage stage, LongSupplier action) {
+        long start = System.nanoTime();
+        try {
+            return action.getAsLong();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void time(Stage stage, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    private void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null && stage.serverTimingName != null) {
+            trace.addDuration(stage.serverTimingName, nanos);
+        }
+    }
+
+    public void recordValuesRead(long count) {
+        valuesRead.record(count);
+    }
+
+    public void recordValuesKept(long count) {
+        valuesKept.record(count);
+    }
+
+    public void recordFileBytes(long bytes) {
+        fileBytes.record(bytes);
+    }
+
+    /**
+     * @return сколько байт выделил текущий поток с момента запуска, -1 если JVM этого не считает
+     */
+    public long allocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Записывает память, выделенную текущим потоком после отметки {@link #allocatedBytes()}.
+     */
+    public void recordAllocatedBytes(long since) {
+        if (since >= 0) {
+            allocatedBytes.record(allocatedBytes() - since);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.SortedColumn;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU-кеш отсортированных столбцов, ограниченный по суммарному объёму в куче и по числу записей.
+ * Столбец сортируется целиком и попадает в кеш только со второго промаха по ключу и только если
+ * помещается в него (см. {@link #admit}); до этого запрос читает файл потоково, как без кеша.
+ */
+@Component
+public class SortedColumnCache {
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private final LinkedHashMap<FileKey, SortedColumn> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    // Столбцы, прочитанные потоково после промаха, и сколько в них было значений
+    private final LinkedHashMap<FileKey, Long> missed = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SortedColumnCache(NMinimalProperties properties) {
+        this.maxBytes = properties.getCache().getMaxBytes();
+        this.maxEntries = properties.getCache().getMaxEntries();
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0 && maxEntries > 0;
+    }
+
+    /**
+     * @return столбец из кеша или null, если его там нет
+     */
+    public synchronized SortedColumn get(FileKey key) {
+        SortedColumn column = entries.get(key);
+        if (column == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return column;
+    }
+
+    /**
+     * Кладёт столбец в кеш, вытесняя давно не использованные записи.
+     * Столбцы больше всего кеша не сохраняются.
+     */
+    public synchronized void put(FileKey key, SortedColumn column) {
+        long bytes = column.sizeInBytes();
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        SortedColumn previous = entries.put(key, column);
+        if (previous != null) {
+            currentBytes -= previous.sizeInBytes();
+        }
+        currentBytes += bytes;
+
+        Iterator<Map.Entry<FileKey, SortedColumn>> eldest = entries.entrySet().iterator();
+        while ((currentBytes > maxBytes || entries.size() > maxEntries) && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().sizeInBytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Запоминает, что столбец прочитан без сортировки и в нём values значений.
+     */
+    public synchronized void recordMiss(FileKey key, long values) {
+        missed.put(key, values);
+        Iterator<FileKey> eldest = missed.keySet().iterator();
+        while (missed.size() > Math.max(maxEntries, 1) && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Стоит ли после промаха разобрать и отсортировать столбец целиком: по ключу уже был промах,
+     * и уникальные значения поместятся в кеш. Их не больше, чем значений при прошлом чтении.
+     *
+     * @param indexed столбец будет сохранён в индексе на диске, поэтому объём кеша не важен
+     */
+    public synchronized boolean admit(FileKey key, boolean indexed) {
+        Long values = missed.get(key);
+        if (values == null || !indexed && SortedColumn.sizeInBytes(values) > maxBytes) {
+            return false;
+        }
+        missed.remove(key);
+        return true;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
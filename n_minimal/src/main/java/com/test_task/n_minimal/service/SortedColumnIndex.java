@@ -0,0 +1,210 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.SortedColumn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Индекс отсортированных столбцов на диске.
+ * Для каждого файла пишется бинарный файл с заголовком и отсортированными уникальными long,
+ * при чтении он отображается в память через {@link FileChannel#map}. Поэтому индекс переживает
+ * перезапуск и делится между несколькими JVM на одном хосте через page cache.
+ * <p>
+ * Формат (little-endian): magic, версия, количество значений, размер и время изменения исходного
+ * файла, CRC32C значений, затем сами значения.
+ * <p>
+ * CRC32C проверяется при первом чтении файла индекса; пока файл не заменён (тот же inode, размер
+ * и время изменения), повторные чтения только отображают его, не трогая страницы значений.
+ */
+@Component
+public class SortedColumnIndex {
+
+    private static final long MAGIC = 0x5844_494D_4E49_4D4EL; // "NMINMIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final String EXTENSION = ".idx";
+    // Значения отображаются одним буфером, размер которого ограничен int
+    private static final int MAX_VALUES = (Integer.MAX_VALUE - HEADER_BYTES) / 8;
+
+    private final Logger logger = LoggerFactory.getLogger(SortedColumnIndex.class);
+
+    private final Path directory;
+
+    // Файлы индекса, контрольная сумма которых уже сошлась
+    private final Map<Path, Stamp> verified = new ConcurrentHashMap<>();
+
+    private record Stamp(Object fileKey, long size, FileTime lastModified) {
+
+        static Stamp of(BasicFileAttributes attributes) {
+            return new Stamp(attributes.fileKey(), attributes.size(), attributes.lastModifiedTime());
+        }
+    }
+
+    public SortedColumnIndex(NMinimalProperties properties) {
+        String configured = properties.getIndex().getDirectory();
+        this.directory = configured == null || configured.isBlank() ? null : Path.of(configured);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @return столбец, отображённый из файла индекса, или null, если индекса нет или он устарел
+     */
+    public SortedColumn load(FileKey key) {
+        Path path = indexPath(key);
+
+        // Атрибуты берутся до открытия: если файл заменят между этими шагами, запомнится старый inode,
+        // и следующее чтение проверит сумму заново
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Индекса нет
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        Stamp stamp = Stamp.of(attributes);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (channel.size() < HEADER_BYTES || mapped.getLong(0) != MAGIC || mapped.getInt(8) != VERSION) {
+                logger.warn("Ignoring unrecognized index file {}", path);
+                return null;
+            }
+
+            int count = mapped.getInt(12);
+            if (count < 0 || count > MAX_VALUES) {
+                logger.warn("Ignoring index file with invalid size {}", path);
+                return null;
+            }
+            if (mapped.getLong(16) != key.size() || mapped.getLong(24) != key.lastModified()) {
+                // Исходный файл изменился, индекс будет перезаписан после разбора
+                return null;
+            }
+            if (channel.size() != HEADER_BYTES + 8L * count) {
+                logger.warn("Ignoring truncated index file {}", path);
+                return null;
+            }
+
+            ByteBuffer payload = mapped.slice(HEADER_BYTES, 8 * count).order(ByteOrder.LITTLE_ENDIAN);
+            if (!stamp.equals(verified.get(path))) {
+                if (checksum(payload) != mapped.getLong(32)) {
+                    verified.remove(path);
+                    logger.warn("Ignoring index file with checksum mismatch {}", path);
+                    return null;
+                }
+                verified.put(path, stamp);
+            }
+
+            return new SortedColumn(payload.asLongBuffer());
+        } catch (IOException e) {
+            logger.warn("Cannot read index file {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Пишет индекс во временный файл и атомарно переименовывает его,
+     * чтобы параллельные читатели никогда не видели недописанный файл.
+     */
+    public void store(FileKey key, SortedColumn column) {
+        if (column.size() > MAX_VALUES) {
+            return;
+        }
+
+        Path path = indexPath(key);
+        Path temp = null;
+
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+            ByteBuffer payload = ByteBuffer.allocate(8 * column.size()).order(ByteOrder.LITTLE_ENDIAN);
+            payload.asLongBuffer().put(column.values());
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(column.size())
+                    .putLong(key.size())
+                    .putLong(key.lastModified())
+                    .putLong(checksum(payload))
+                    .flip();
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (payload.hasRemaining()) {
+                    channel.write(payload);
+                }
+                channel.force(false);
+            }
+
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            verified.remove(path);
+        } catch (IOException e) {
+            logger.warn("Cannot write index file {}: {}", path, e.getMessage());
+            deleteQuietly(temp);
+        }
+    }
+
+    // Имя файла индекса - SHA-256 канонического пути исходного файла, а для другого листа или столбца -
+    // пути вместе с ними; у первого столбца первого листа имя прежнее, и готовые индексы остаются в силе
+    Path indexPath(FileKey key) {
+        String source = key.isFirstColumn() ? key.canonicalPath()
+                : key.canonicalPath() + "\0" + (key.sheet() != null ? key.sheet() : "") + "\0" + key.column();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long checksum(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return crc.getValue();
+    }
+
+    private void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            logger.warn("Cannot delete temporary index file {}: {}", temp, e.getMessage());
+        }
+    }
+}
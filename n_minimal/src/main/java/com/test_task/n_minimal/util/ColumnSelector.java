@@ -0,0 +1,82 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.LinkProcessingException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Выбор листа и столбца, из которого берутся числа.
+ * Лист задаётся именем или номером с 1, столбец - буквой (A, AB) или номером с 1.
+ * Без параметров берётся первый столбец первого листа.
+ *
+ * @param sheet  имя или номер листа, null - первый лист
+ * @param column буква или номер столбца, null - первый столбец
+ */
+public record ColumnSelector(String sheet, String column) {
+
+    public static final ColumnSelector FIRST = new ColumnSelector(null, null);
+
+    // Последний столбец листа xlsx - XFD
+    private static final int MAX_COLUMNS = 16_384;
+
+    public ColumnSelector {
+        sheet = blankToNull(sheet);
+        column = blankToNull(column);
+    }
+
+    public boolean isFirst() {
+        return sheet == null && column == null;
+    }
+
+    /**
+     * @return индекс столбца с 0
+     * @throws LinkProcessingException если столбец задан неверно
+     */
+    public int columnIndex() {
+        if (column == null) {
+            return 0;
+        }
+        int index;
+        if (column.chars().allMatch(Character::isDigit)) {
+            index = column.length() > 5 ? -1 : Integer.parseInt(column) - 1;
+        } else if (column.chars().allMatch(ch -> ch < 128 && Character.isLetter(ch)) && column.length() <= 3) {
+            index = SheetColumnHandler.columnIndex(column.toUpperCase(Locale.ROOT));
+        } else {
+            index = -1;
+        }
+        if (index < 0 || index >= MAX_COLUMNS) {
+            throw new LinkProcessingException("Invalid column: " + column);
+        }
+        return index;
+    }
+
+    /**
+     * Находит лист сначала по имени без учёта регистра, как Excel, затем по номеру.
+     *
+     * @param sheetNames имена листов книги по порядку
+     * @return индекс листа с 0
+     * @throws LinkProcessingException если такого листа нет
+     */
+    public int sheetIndex(List<String> sheetNames) {
+        if (sheet == null) {
+            return 0;
+        }
+        for (int i = 0; i < sheetNames.size(); i++) {
+            if (sheet.equalsIgnoreCase(sheetNames.get(i))) {
+                return i;
+            }
+        }
+        if (sheet.length() <= 5 && sheet.chars().allMatch(Character::isDigit)) {
+            int index = Integer.parseInt(sheet) - 1;
+            if (index >= 0 && index < sheetNames.size()) {
+                return index;
+            }
+        }
+        throw new LinkProcessingException("Sheet not found: " + sheet);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,150 @@
+package com.test_task.n_minimal.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Общие строки только для выбранного столбца. Сначала при разборе листа отмечаются индексы,
+ * на которые ссылается столбец, затем xl/sharedStrings.xml читается одним проходом SAX,
+ * и из него сохраняются только эти записи, уже приведённые к long. Остальные строки книги
+ * в память не попадают, а повторяющиеся ячейки берут число из таблицы без повторного разбора.
+ */
+class ColumnSharedStrings extends DefaultHandler {
+
+    private final BitSet referenced = new BitSet();
+
+    // Открытая адресация: ключ хранится как индекс + 1, 0 - пустая ячейка.
+    // Нечисловые строки в таблицу не попадают
+    private int[] keys = new int[0];
+    private long[] numbers = new long[0];
+    private int mask;
+
+    // Состояние разбора sharedStrings.xml
+    private int index = -1;
+    private boolean keep;
+    private boolean inText;
+    private boolean inPhonetic;
+    private final StringBuilder text = new StringBuilder();
+    private final LongConsumer store = number -> put(index, number);
+
+    // Прогресс долгого запроса, null если не отслеживается
+    private final ScanProgress progress = ScanProgress.current();
+
+    void reference(int index) {
+        referenced.set(index);
+    }
+
+    boolean hasReferences() {
+        return !referenced.isEmpty();
+    }
+
+    /**
+     * Читает часть общих строк книги; если её нет, все ссылки считаются нечисловыми.
+     */
+    void load(OPCPackage pkg) throws IOException, SAXException, ParserConfigurationException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return;
+        }
+        try (InputStream sharedStrings = parts.get(0).getInputStream()) {
+            load(sharedStrings);
+        }
+    }
+
+    void load(InputStream sharedStrings) throws IOException, SAXException, ParserConfigurationException {
+        int capacity = Integer.highestOneBit(Math.max(referenced.cardinality(), 1) * 2 - 1) * 2;
+        keys = new int[capacity];
+        numbers = new long[capacity];
+        mask = capacity - 1;
+
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(this);
+        parser.parse(new InputSource(sharedStrings));
+    }
+
+    /**
+     * Передаёт число строки с индексом index в приёмник.
+     *
+     * @return false, если строка не число или её нет в книге
+     */
+    boolean resolve(int index, LongConsumer sink) {
+        int key = index + 1;
+        for (int slot = mix(key) & mask; keys.length > 0 && keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                sink.accept(numbers[slot]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(int index, long number) {
+        int key = index + 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        numbers[slot] = number;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "si" -> {
+                keep = referenced.get(++index);
+                text.setLength(0);
+                if (index % ScanProgress.CHECKPOINT_ROWS == 0 && progress != null) {
+                    progress.check();
+                }
+            }
+            case "rPh" -> inPhonetic = true;
+            case "t" -> inText = keep && !inPhonetic;
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "si" -> {
+                // Правила те же, что для строковой ячейки листа
+                if (keep) {
+                    XlsxToListConverter.parseStringToLong(text.toString().trim(), store);
+                }
+                keep = false;
+            }
+            case "rPh" -> inPhonetic = false;
+            case "t" -> inText = false;
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inText) {
+            text.append(ch, start, length);
+        }
+    }
+}
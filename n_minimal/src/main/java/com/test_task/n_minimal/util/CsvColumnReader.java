@@ -0,0 +1,336 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.LinkProcessingException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Чтение одного поля CSV-файла в {@link LongColumn} или в приёмник.
+ * Файл отображается в память и делится на куски по границам строк; куски разбираются
+ * параллельно в пуле fork-join прямо из байтов, без создания строки на каждую запись.
+ * С приёмником числа куска передаются в него сразу после разбора куска, и в памяти остаются
+ * только куски, разбираемые в данный момент.
+ * Как и в xlsx, поле, не являющееся целым числом (заголовок, дробь, текст), пропускается,
+ * пробелы внутри числа игнорируются. Разделитель полей - запятая, точка с запятой или табуляция.
+ */
+final class CsvColumnReader {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final String LINE_TOO_LONG = "CSV line is too long";
+    private static final long MULTIPLY_MIN = Long.MIN_VALUE / 10;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    CsvColumnReader(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Числа выбранного поля в порядке строк файла и счётчики разбора.
+     * При чтении в приёмник values пуст, а count - число переданных значений.
+     */
+    static final class Scan {
+
+        final LongColumn values;
+        long count;
+        long rows;
+        long skipped;
+
+        Scan(LongColumn values) {
+            this.values = values;
+        }
+
+        private Scan(LongColumn values, long count, long rows, long skipped) {
+            this.values = values;
+            this.count = count;
+            this.rows = rows;
+            this.skipped = skipped;
+        }
+    }
+
+    Scan read(String link) {
+        return read(link, 0);
+    }
+
+    /**
+     * @param column индекс поля с 0
+     * @throws UncheckedIOException если файл не удалось прочитать
+     */
+    Scan read(String link, int column) {
+        return read(link, column, null);
+    }
+
+    /**
+     * Передаёт числа поля в приёмник по кускам, по мере их разбора. Порядок строк между кусками
+     * не сохраняется; приёмник вызывается под блокировкой, поэтому может быть непотокобезопасным.
+     *
+     * @param sink приёмник или null, чтобы собрать числа в {@link Scan#values}
+     * @throws UncheckedIOException если файл не удалось прочитать
+     */
+    Scan read(String link, int column, LongConsumer sink) {
+        ScanProgress progress = ScanProgress.current();
+        try (FileChannel channel = FileChannel.open(Path.of(link), StandardOpenOption.READ)) {
+            long[] bounds = lineBounds(channel);
+            return pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1, column, progress,
+                    new AtomicLong(), sink));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Границы кусков: каждая, кроме первой и последней, стоит сразу после перевода строки
+    private long[] lineBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        long[] bounds = new long[chunks + 1];
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, (long) i * chunkSize, size, probe));
+        }
+        bounds[chunks] = size;
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe)
+            throws IOException {
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private final class ChunkTask extends RecursiveTask<Scan> {
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final int column;
+        private final ScanProgress progress;
+        private final AtomicLong rowsProcessed;
+        private final LongConsumer sink;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, int column, ScanProgress progress,
+                  AtomicLong rowsProcessed, LongConsumer sink) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.column = column;
+            this.progress = progress;
+            this.rowsProcessed = rowsProcessed;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Scan compute() {
+            if (to - from == 1) {
+                return parse(bounds[from], bounds[to]);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, bounds, from, middle, column, progress, rowsProcessed, sink);
+            left.fork();
+            Scan right = new ChunkTask(channel, bounds, middle, to, column, progress, rowsProcessed, sink)
+                    .compute();
+            Scan merged = left.join();
+
+            // Порядок строк сохраняется: левая половина файла идёт первой
+            merged.values.addAll(right.values);
+            merged.count += right.count;
+            merged.rows += right.rows;
+            merged.skipped += right.skipped;
+            return merged;
+        }
+
+        private Scan parse(long start, long end) {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new LinkProcessingException(LINE_TOO_LONG);
+            }
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            Scan scan = new Scan(new LongColumn((int) Math.min(length / 16 + 1, chunkSize)));
+            int limit = (int) length;
+            int position = start == 0 ? skipByteOrderMark(buffer, limit) : 0;
+            long sinceCheckpoint = 0;
+            while (position < limit) {
+                position = parseLine(buffer, position, limit, column, scan);
+                if (++sinceCheckpoint == ScanProgress.CHECKPOINT_ROWS && progress != null) {
+                    progress.checkpoint(rowsProcessed.addAndGet(sinceCheckpoint));
+                    sinceCheckpoint = 0;
+                }
+            }
+            if (progress != null) {
+                progress.checkpoint(rowsProcessed.addAndGet(sinceCheckpoint));
+            }
+
+            scan.count = scan.values.size();
+            if (sink != null) {
+                long[] values = scan.values.array();
+                synchronized (sink) {
+                    for (int i = 0; i < scan.values.size(); i++) {
+                        sink.accept(values[i]);
+                    }
+                }
+                // Кусок передан, дальше его числа не нужны
+                return new Scan(new LongColumn(0), scan.count, scan.rows, scan.skipped);
+            }
+            return scan;
+        }
+    }
+
+    private static int skipByteOrderMark(ByteBuffer buffer, int limit) {
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * Разбирает поле column строки, начинающейся с position.
+     *
+     * @return позиция начала следующей строки
+     */
+    static int parseLine(ByteBuffer buffer, int position, int limit, int column, Scan scan) {
+        int p = skipSpaces(buffer, position, limit);
+        if (p == limit || isLineEnd(buffer.get(p))) {
+            // Пустая строка не считается строкой данных
+            return nextLine(buffer, p, limit);
+        }
+        scan.rows++;
+
+        // Предыдущие поля пропускаются без разбора; в строке меньше полей - значение пустое
+        for (int field = 0; field < column; field++) {
+            p = skipField(buffer, p, limit);
+            if (p == limit || isLineEnd(buffer.get(p))) {
+                return nextLine(buffer, p, limit);
+            }
+            p++;
+        }
+        position = p;
+        p = skipSpaces(buffer, p, limit);
+
+        boolean quoted = p < limit && buffer.get(p) == '"';
+        if (quoted) {
+            p++;
+        }
+        boolean negative = false;
+        if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+            negative = buffer.get(p) == '-';
+            p++;
+        }
+
+        // Накопление в отрицательную сторону, как в Long.parseLong, чтобы уместить Long.MIN_VALUE
+        long value = 0;
+        int digits = 0;
+        boolean valid = true;
+        while (p < limit) {
+            byte b = buffer.get(p);
+            if (b >= '0' && b <= '9') {
+                int digit = b - '0';
+                if (value < MULTIPLY_MIN || value * 10 < Long.MIN_VALUE + digit) {
+                    valid = false;
+                    break;
+                }
+                value = value * 10 - digit;
+                digits++;
+            } else if (b != ' ') {
+                break;
+            }
+            p++;
+        }
+
+        if (valid && quoted) {
+            if (p < limit && buffer.get(p) == '"') {
+                p = skipSpaces(buffer, p + 1, limit);
+            } else {
+                valid = false;
+            }
+        }
+        valid &= digits > 0 && (negative || value != Long.MIN_VALUE)
+                && (p == limit || isFieldEnd(buffer.get(p)));
+
+        if (valid) {
+            scan.values.add(negative ? value : -value);
+        } else if (!isEmptyField(buffer, position, limit)) {
+            scan.skipped++;
+        }
+        return nextLine(buffer, p, limit);
+    }
+
+    // Пустое поле не считается пропущенным значением, как пустая ячейка листа
+    private static boolean isEmptyField(ByteBuffer buffer, int position, int limit) {
+        int p = skipSpaces(buffer, position, limit);
+        if (p < limit - 1 && buffer.get(p) == '"' && buffer.get(p + 1) == '"') {
+            p = skipSpaces(buffer, p + 2, limit);
+        }
+        return p == limit || isFieldEnd(buffer.get(p));
+    }
+
+    // Позиция разделителя или конца строки после поля; разделители в кавычках не учитываются
+    private static int skipField(ByteBuffer buffer, int position, int limit) {
+        boolean quoted = false;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' || !quoted && isFieldEnd(b)) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && buffer.get(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int nextLine(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static boolean isFieldEnd(byte b) {
+        return b == ',' || b == ';' || b == '\t' || isLineEnd(b);
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\r' || b == '\n';
+    }
+}
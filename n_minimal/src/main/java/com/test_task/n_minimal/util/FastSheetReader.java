@@ -0,0 +1,754 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.LinkProcessingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Быстрый разбор листа xlsx (xl/worksheets/sheetN.xml) прямо по распакованным байтам, минуя SAX.
+ * Ищет ячейки {@code <c>} целевого столбца и переводит цифры {@code <v>} и {@code <t>} в long
+ * без промежуточных строк; ячейки других столбцов пропускаются на уровне байтов.
+ * Правила приведения те же, что в {@link SheetColumnHandler}. Числа сразу уходят в приёмник, а от ячеек
+ * общих строк запоминаются только индексы: их числа передаются после загрузки {@link ColumnSharedStrings}
+ * через {@link #flush()}. Порядок значений поэтому не сохраняется, ни куче, ни скетчу, ни сортировке он
+ * не нужен. Редкие значения (экспонента, больше 15 цифр, сущности XML, не-ASCII символы) приводятся через строку.
+ * Лист с префиксами пространств имён или не в UTF-8 не разбирается: {@link #read} возвращает false
+ * до первого значения, и вызывающий переходит на SAX.
+ */
+final class FastSheetReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // До стольких значащих цифр double точно передаёт десятичное число, и усечение совпадает с (long) double
+    private static final int EXACT_DOUBLE_DIGITS = 15;
+    private static final long MULTIPLY_MIN = Long.MIN_VALUE / 10;
+
+    private static final byte[] WORKSHEET = ascii("worksheet");
+    private static final byte[] SHEET_DATA = ascii("sheetData");
+    private static final byte[] DIMENSION = ascii("dimension");
+    private static final byte[] ROW = ascii("row");
+    private static final byte[] CELL = ascii("c");
+    private static final byte[] VALUE = ascii("v");
+    private static final byte[] FORMULA = ascii("f");
+    private static final byte[] INLINE_STRING = ascii("is");
+    private static final byte[] TEXT = ascii("t");
+    private static final byte[] PHONETIC = ascii("rPh");
+    private static final byte[] REF = ascii("ref");
+    private static final byte[] REFERENCE = ascii("r");
+    private static final byte[] TYPE = ascii("t");
+
+    // Типы ячеек по атрибуту t
+    private static final int TYPE_NUMBER = 0;
+    private static final int TYPE_SHARED = 1;
+    private static final int TYPE_INLINE = 2;
+    private static final int TYPE_OTHER = 3;
+
+    private final ColumnSharedStrings sharedStrings;
+    private final LongConsumer sink;
+
+    // Индексы общих строк по одному на ячейку столбца, 4 байта вместо самого значения
+    private int[] pendingStrings = new int[0];
+    private int pendingCount;
+    private final int targetColumn;
+
+    // Прогресс долгого запроса, null если не отслеживается
+    private final ScanProgress progress;
+
+    private InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Имя текущего элемента или атрибута и собранный текст значения
+    private final byte[] name = new byte[32];
+    private int nameLength;
+    // Имя элемента, пока атрибуты перезаписывают name
+    private final byte[] elementName = new byte[32];
+    private int elementNameLength;
+    private byte[] text = new byte[64];
+    private int textLength;
+    private boolean collecting;
+    private boolean done;
+
+    // Состояние текущей ячейки
+    private int cellColumn;
+    private boolean inTargetCell;
+    private int cellType;
+    private boolean formula;
+    private boolean hasValue;
+    private boolean inInlineString;
+    private boolean inPhonetic;
+
+    // Счётчики для отладочной разбивки запроса
+    private long rows;
+    private long values;
+    private long skipped;
+
+    FastSheetReader(ColumnSharedStrings sharedStrings, LongConsumer sink, int targetColumn) {
+        this.sharedStrings = sharedStrings;
+        this.sink = sink;
+        this.targetColumn = targetColumn;
+        this.progress = ScanProgress.current();
+    }
+
+    /**
+     * @return false, если лист записан в форме, которую быстрый разбор не поддерживает;
+     * в этом случае в приёмник ничего не передано
+     */
+    boolean read(InputStream sheet) throws IOException {
+        in = sheet;
+        if (!readRoot()) {
+            return false;
+        }
+
+        while (!done && advanceToTag()) {
+            int b = next();
+            if (b == '/') {
+                readName();
+                endElement();
+                skipPast('>');
+            } else if (b == '?') {
+                skipPast('>');
+            } else if (b == '!') {
+                skipMarkup();
+            } else {
+                position--;
+                readName();
+                saveElementName();
+                if (startElement()) {
+                    // Самозакрывающийся элемент, например <c r="A3" s="2"/>, закрывается сразу
+                    restoreElementName();
+                    endElement();
+                }
+            }
+        }
+
+        if (progress != null) {
+            progress.checkpoint(rows);
+        }
+        return true;
+    }
+
+    // Пролог и корневой элемент: всё, кроме <worksheet> в UTF-8, отдаётся SAX
+    private boolean readRoot() throws IOException {
+        if (!fill()) {
+            return false;
+        }
+        int first = buffer[0] & 0xFF;
+        if (first == 0xFE || first == 0xFF || first == 0x00) {
+            return false;
+        }
+        if (limit >= 3 && first == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF) {
+            position = 3;
+        }
+
+        while (advanceToTag()) {
+            int b = next();
+            if (b == '?') {
+                if (!isUtf8Declaration()) {
+                    return false;
+                }
+            } else if (b == '!') {
+                skipMarkup();
+            } else {
+                position--;
+                readName();
+                if (!nameIs(WORKSHEET)) {
+                    return false;
+                }
+                skipAttributes();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isUtf8Declaration() throws IOException {
+        textLength = 0;
+        int b;
+        while ((b = next()) != '>') {
+            appendText((byte) b);
+        }
+        String declaration = new String(text, 0, textLength, StandardCharsets.US_ASCII);
+        textLength = 0;
+        int encoding = declaration.indexOf("encoding");
+        if (encoding < 0) {
+            return true;
+        }
+        String[] quoted = declaration.substring(encoding).split("[\"']", 3);
+        String value = quoted.length > 1 ? quoted[1] : "";
+        return value.equalsIgnoreCase("UTF-8") || value.equalsIgnoreCase("UTF8");
+    }
+
+    // Возвращает true для самозакрывающегося элемента
+    private boolean startElement() throws IOException {
+        if (nameIs(ROW)) {
+            cellColumn = -1;
+            if (++rows % ScanProgress.CHECKPOINT_ROWS == 0 && progress != null) {
+                progress.checkpoint(rows);
+            }
+            return skipAttributes();
+        }
+        if (nameIs(CELL)) {
+            return startCell();
+        }
+        if (nameIs(VALUE)) {
+            startCollecting();
+        } else if (nameIs(FORMULA)) {
+            formula |= inTargetCell;
+        } else if (nameIs(INLINE_STRING)) {
+            inInlineString = inTargetCell;
+        } else if (nameIs(PHONETIC)) {
+            inPhonetic = true;
+        } else if (nameIs(TEXT)) {
+            if (inInlineString && !inPhonetic) {
+                startCollecting();
+            }
+        } else if (nameIs(DIMENSION)) {
+            return readDimension();
+        }
+        return skipAttributes();
+    }
+
+    private void endElement() {
+        if (nameIs(VALUE) || nameIs(TEXT)) {
+            collecting = false;
+        } else if (nameIs(PHONETIC)) {
+            inPhonetic = false;
+        } else if (nameIs(INLINE_STRING)) {
+            inInlineString = false;
+        } else if (nameIs(CELL)) {
+            if (inTargetCell) {
+                if (cellType == TYPE_SHARED && !formula && hasValue) {
+                    if (!deferSharedString()) {
+                        skipped++;
+                    }
+                } else if (extractLong()) {
+                    values++;
+                } else {
+                    skipped++;
+                }
+                inTargetCell = false;
+            }
+        } else if (nameIs(SHEET_DATA)) {
+            // Дальше идут объединения ячеек, форматирование и прочее, значений там нет
+            done = true;
+        }
+    }
+
+    private boolean startCell() throws IOException {
+        int column = -1;
+        int type = TYPE_NUMBER;
+        int quote;
+        while ((quote = nextAttribute()) > 0) {
+            if (nameIs(REFERENCE)) {
+                column = readColumnReference(quote);
+            } else if (nameIs(TYPE)) {
+                type = readCellType(quote);
+            } else {
+                skipPast(quote);
+            }
+        }
+        cellColumn = column >= 0 ? column : cellColumn + 1;
+        inTargetCell = cellColumn == targetColumn;
+        if (inTargetCell) {
+            cellType = type;
+            formula = false;
+            hasValue = false;
+            textLength = 0;
+        }
+        return quote == 0;
+    }
+
+    // Индекс столбца по буквам ссылки, например "AB12" -> 27
+    private int readColumnReference(int quote) throws IOException {
+        int column = 0;
+        int b;
+        while ((b = next()) != quote) {
+            if (b >= 'A' && b <= 'Z') {
+                column = column * 26 + (b - 'A' + 1);
+            } else {
+                skipPast(quote);
+                break;
+            }
+        }
+        return column - 1;
+    }
+
+    private int readCellType(int quote) throws IOException {
+        textLength = 0;
+        int b;
+        while ((b = next()) != quote) {
+            appendText((byte) b);
+        }
+        int type;
+        if (textIs("n")) {
+            type = TYPE_NUMBER;
+        } else if (textIs("s")) {
+            type = TYPE_SHARED;
+        } else if (textIs("inlineStr") || textIs("str")) {
+            type = TYPE_INLINE;
+        } else {
+            type = TYPE_OTHER;
+        }
+        textLength = 0;
+        return type;
+    }
+
+    // Оценка числа строк по размерности листа, например "A1:C1000" -> 1000
+    private boolean readDimension() throws IOException {
+        int quote;
+        while ((quote = nextAttribute()) > 0) {
+            if (!nameIs(REF)) {
+                skipPast(quote);
+                continue;
+            }
+            textLength = 0;
+            int b;
+            while ((b = next()) != quote) {
+                appendText((byte) b);
+            }
+            if (progress != null) {
+                progress.setEstimatedRows(SheetColumnHandler.lastRow(
+                        new String(text, 0, textLength, StandardCharsets.US_ASCII)));
+            }
+            textLength = 0;
+        }
+        return quote == 0;
+    }
+
+    private void startCollecting() {
+        if (inTargetCell) {
+            collecting = true;
+            hasValue = true;
+        }
+    }
+
+    /**
+     * Приводит значение ячейки к числу по тем же правилам, что и {@link SheetColumnHandler}.
+     *
+     * @return true, если значение передано в приёмник
+     */
+    private boolean extractLong() {
+        if (formula || !hasValue) {
+            return false;
+        }
+        return switch (cellType) {
+            case TYPE_NUMBER -> acceptNumber();
+            case TYPE_INLINE -> acceptString();
+            default -> false;
+        };
+    }
+
+    // Как (long) Double.parseDouble(value): целая часть до 15 цифр считается сразу, остальное - через double
+    private boolean acceptNumber() {
+        int start = 0;
+        int end = textLength;
+        while (start < end && (text[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (text[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long integerPart = 0;
+        int digits = 0;
+        while (i < end && text[i] >= '0' && text[i] <= '9') {
+            integerPart = integerPart * 10 + (text[i++] - '0');
+            digits++;
+        }
+        if (i < end && text[i] == '.') {
+            i++;
+            while (i < end && text[i] >= '0' && text[i] <= '9') {
+                i++;
+                digits++;
+            }
+        }
+        if (i == end && digits > 0 && digits <= EXACT_DOUBLE_DIGITS) {
+            sink.accept(negative ? -integerPart : integerPart);
+            return true;
+        }
+
+        double number;
+        try {
+            number = Double.parseDouble(decodeText());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        sink.accept((long) number);
+        return true;
+    }
+
+    // Запоминает индекс общей строки; число станет известно после загрузки ColumnSharedStrings
+    private boolean deferSharedString() {
+        int index = 0;
+        int digits = 0;
+        for (int i = 0; i < textLength; i++) {
+            byte b = text[i];
+            if (b >= '0' && b <= '9' && index < Integer.MAX_VALUE / 10) {
+                index = index * 10 + (b - '0');
+                digits++;
+            } else if ((b & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (pendingCount == pendingStrings.length) {
+            pendingStrings = Arrays.copyOf(pendingStrings, Math.max(16, pendingCount * 2));
+        }
+        pendingStrings[pendingCount++] = index;
+        sharedStrings.reference(index);
+        return true;
+    }
+
+    /**
+     * @return true, если есть отложенные ячейки и перед {@link #flush()} нужно загрузить общие строки
+     */
+    boolean hasPendingStrings() {
+        return pendingCount > 0;
+    }
+
+    /**
+     * Передаёт в приёмник числа отложенных ячеек из загруженных общих строк.
+     */
+    void flush() {
+        for (int i = 0; i < pendingCount; i++) {
+            if (sharedStrings.resolve(pendingStrings[i], sink)) {
+                values++;
+            } else {
+                skipped++;
+            }
+        }
+        pendingStrings = new int[0];
+        pendingCount = 0;
+    }
+
+    // Как XlsxToListConverter.parseStringToLong(value.trim()): пробелы внутри числа игнорируются
+    private boolean acceptString() {
+        int start = 0;
+        int end = textLength;
+        while (start < end && (text[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (text[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            if (text[i] < 0 || text[i] == '&') {
+                // Не-ASCII цифры и сущности XML приводятся так же, как в SAX-обработчике
+                return XlsxToListConverter.parseStringToLong(decodeText().trim(), sink);
+            }
+        }
+
+        int i = skipSpaces(start, end);
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i = skipSpaces(i + 1, end);
+        }
+
+        // Накопление в отрицательную сторону, как в Long.parseLong, чтобы уместить Long.MIN_VALUE
+        long value = 0;
+        int digits = 0;
+        for (; i < end; i = skipSpaces(i + 1, end)) {
+            byte b = text[i];
+            if (b < '0' || b > '9') {
+                return false;
+            }
+            int digit = b - '0';
+            if (value < MULTIPLY_MIN || value * 10 < Long.MIN_VALUE + digit) {
+                return false;
+            }
+            value = value * 10 - digit;
+            digits++;
+        }
+        if (digits == 0 || !negative && value == Long.MIN_VALUE) {
+            return false;
+        }
+        sink.accept(negative ? value : -value);
+        return true;
+    }
+
+    private int skipSpaces(int i, int end) {
+        while (i < end && text[i] == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    // Текст значения как строка с раскрытыми сущностями XML, для редких значений
+    private String decodeText() {
+        String value = new String(text, 0, textLength, StandardCharsets.UTF_8);
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        StringBuilder decoded = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            char ch = value.charAt(i);
+            int semicolon = ch == '&' ? value.indexOf(';', i) : -1;
+            if (semicolon < 0) {
+                decoded.append(ch);
+                i++;
+                continue;
+            }
+            String entity = value.substring(i + 1, semicolon);
+            switch (entity) {
+                case "amp" -> decoded.append('&');
+                case "lt" -> decoded.append('<');
+                case "gt" -> decoded.append('>');
+                case "quot" -> decoded.append('"');
+                case "apos" -> decoded.append('\'');
+                default -> {
+                    if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                        decoded.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+                    } else if (entity.startsWith("#")) {
+                        decoded.appendCodePoint(Integer.parseInt(entity.substring(1)));
+                    } else {
+                        throw new LinkProcessingException("Error reading Excel file: unknown entity &" + entity + ";");
+                    }
+                }
+            }
+            i = semicolon + 1;
+        }
+        return decoded.toString();
+    }
+
+    // === Чтение байтов ===
+
+    // Переходит за следующий '<', по пути собирая текст значения, если он нужен
+    private boolean advanceToTag() throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == '<') {
+                    if (collecting) {
+                        appendText(buffer, position, i - position);
+                    }
+                    position = i + 1;
+                    return true;
+                }
+            }
+            if (collecting) {
+                appendText(buffer, position, limit - position);
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    // Имя элемента до пробела, '/' или '>'; разделитель не потребляется
+    private void readName() throws IOException {
+        nameLength = 0;
+        while (true) {
+            int b = next();
+            if (b <= ' ' || b == '/' || b == '>') {
+                position--;
+                return;
+            }
+            if (nameLength < name.length) {
+                name[nameLength] = (byte) b;
+            }
+            nameLength++;
+        }
+    }
+
+    /**
+     * Читает имя следующего атрибута и открывающую кавычку значения.
+     *
+     * @return кавычка значения; 0, если элемент самозакрывающийся; -1, если атрибутов больше нет
+     */
+    private int nextAttribute() throws IOException {
+        int b = next();
+        while (b <= ' ') {
+            b = next();
+        }
+        if (b == '>') {
+            return -1;
+        }
+        if (b == '/') {
+            skipPast('>');
+            return 0;
+        }
+
+        nameLength = 0;
+        while (b != '=' && b > ' ') {
+            if (nameLength < name.length) {
+                name[nameLength] = (byte) b;
+            }
+            nameLength++;
+            b = next();
+        }
+        while (b != '"' && b != '\'') {
+            b = next();
+        }
+        return b;
+    }
+
+    // Пропускает атрибуты до конца открывающего тега; возвращает true для самозакрывающегося элемента
+    private boolean skipAttributes() throws IOException {
+        int quote = 0;
+        int previous = 0;
+        while (true) {
+            int b = next();
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return previous == '/';
+            }
+            previous = b;
+        }
+    }
+
+    // Комментарий, CDATA или объявление; содержимое CDATA считается текстом значения
+    private void skipMarkup() throws IOException {
+        int first = next();
+        if (first == '-') {
+            skipUntil("-->");
+        } else if (first == '[') {
+            skipUntil("CDATA[");
+            boolean keep = collecting;
+            int matched = 0;
+            while (matched < 3) {
+                int b = next();
+                matched = b == ']' ? Math.min(matched + 1, 2) : matched == 2 && b == '>' ? 3 : 0;
+                if (keep) {
+                    appendText((byte) b);
+                }
+            }
+            if (keep) {
+                textLength -= 3;
+            }
+        } else {
+            skipPast('>');
+        }
+    }
+
+    private void skipUntil(String terminator) throws IOException {
+        int matched = 0;
+        while (matched < terminator.length()) {
+            int b = next();
+            if (b == terminator.charAt(matched)) {
+                matched++;
+            } else {
+                matched = b == terminator.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    private void skipPast(int terminator) throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == terminator) {
+                    position = i + 1;
+                    return;
+                }
+            }
+            if (!fill()) {
+                throw unexpectedEnd();
+            }
+        }
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            throw unexpectedEnd();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private static LinkProcessingException unexpectedEnd() {
+        return new LinkProcessingException("Error reading Excel file: unexpected end of sheet");
+    }
+
+    private void appendText(byte b) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = b;
+    }
+
+    private void appendText(byte[] source, int offset, int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+        System.arraycopy(source, offset, text, textLength, length);
+        textLength += length;
+    }
+
+    private void saveElementName() {
+        elementNameLength = nameLength;
+        System.arraycopy(name, 0, elementName, 0, Math.min(nameLength, name.length));
+    }
+
+    private void restoreElementName() {
+        nameLength = elementNameLength;
+        System.arraycopy(elementName, 0, name, 0, Math.min(nameLength, name.length));
+    }
+
+    private boolean nameIs(byte[] expected) {
+        if (nameLength != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (name[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean textIs(String expected) {
+        if (textLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < textLength; i++) {
+            if (text[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getValues() {
+        return values;
+    }
+
+    long getSkipped() {
+        return skipped;
+    }
+}
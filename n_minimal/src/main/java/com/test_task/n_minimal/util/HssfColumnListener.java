@@ -0,0 +1,173 @@
+package com.test_task.n_minimal.util;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Слушатель записей BIFF-файла .xls (HSSF event model).
+ * Читает потоково только ячейки целевого столбца выбранного листа и передаёт числа в приёмник
+ * по тем же правилам, что и {@link SheetColumnHandler}; после конца этого листа разбор прерывается.
+ * Лист находится по порядку записей BoundSheet. RK- и MulRK-записи приходят сюда уже как {@link NumberRecord}.
+ */
+class HssfColumnListener extends AbortableHSSFListener {
+
+    private static final short CONTINUE = 0;
+    private static final short STOP = 1;
+
+    private final LongConsumer sink;
+    private final ColumnSelector selector;
+    private final int targetColumn;
+
+    // Таблица общих строк и имена листов книги, идут до листов
+    private SSTRecord sharedStrings;
+    private final List<String> sheetNames = new ArrayList<>();
+
+    // Вложенность потоков BOF/EOF: 1 - книга или лист, 2 - диаграмма внутри листа
+    private int depth;
+    private int sheets;
+    private int targetSheet = -1;
+
+    // Счётчики для отладочной разбивки запроса
+    private long rows;
+    private long values;
+    private long skipped;
+
+    // Прогресс долгого запроса, null если не отслеживается
+    private final ScanProgress progress;
+
+    HssfColumnListener(LongConsumer sink, ColumnSelector selector) {
+        this.sink = sink;
+        this.selector = selector;
+        this.targetColumn = selector.columnIndex();
+        this.progress = ScanProgress.current();
+    }
+
+    /**
+     * Регистрирует слушатель только на нужные записи, остальные не разбираются в объекты.
+     */
+    HSSFRequest request() {
+        HSSFRequest request = new HSSFRequest();
+        for (short sid : new short[]{BOFRecord.sid, EOFRecord.sid, SSTRecord.sid, BoundSheetRecord.sid,
+                DimensionsRecord.sid,
+                RowRecord.sid, NumberRecord.sid, LabelSSTRecord.sid, LabelRecord.sid, FormulaRecord.sid,
+                BoolErrRecord.sid, BlankRecord.sid, MulBlankRecord.sid}) {
+            request.addListener(this, sid);
+        }
+        return request;
+    }
+
+    @Override
+    public short abortableProcessRecord(Record record) {
+        if (record instanceof BOFRecord bof) {
+            if (depth++ == 0 && bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                if (targetSheet < 0) {
+                    targetSheet = selector.sheetIndex(sheetNames);
+                }
+                sheets++;
+            }
+            return CONTINUE;
+        }
+        if (record instanceof EOFRecord) {
+            // Конец выбранного листа: остальные листы не читаем
+            if (--depth == 0 && inTargetSheet()) {
+                if (progress != null) {
+                    progress.checkpoint(rows);
+                }
+                return STOP;
+            }
+            return CONTINUE;
+        }
+        if (record instanceof SSTRecord sst) {
+            sharedStrings = sst;
+            return CONTINUE;
+        }
+        if (record instanceof BoundSheetRecord sheet) {
+            sheetNames.add(sheet.getSheetname());
+            return CONTINUE;
+        }
+        if (depth != 1 || !inTargetSheet()) {
+            return CONTINUE;
+        }
+
+        if (record instanceof DimensionsRecord dimensions) {
+            if (progress != null) {
+                progress.setEstimatedRows(dimensions.getLastRow());
+            }
+        } else if (record instanceof RowRecord) {
+            if (++rows % ScanProgress.CHECKPOINT_ROWS == 0 && progress != null) {
+                progress.checkpoint(rows);
+            }
+        } else if (record instanceof MulBlankRecord blanks) {
+            if (blanks.getFirstColumn() <= targetColumn && targetColumn <= blanks.getLastColumn()) {
+                skipped++;
+            }
+        } else if (record instanceof CellValueRecordInterface cell && cell.getColumn() == targetColumn) {
+            if (extractLong(record)) {
+                values++;
+            } else {
+                skipped++;
+            }
+        }
+        return CONTINUE;
+    }
+
+    /**
+     * Приводит значение ячейки к числу по тем же правилам, что и для xlsx:
+     * числа усекаются до long, строки парсятся, формулы и прочие типы игнорируются.
+     *
+     * @return true, если значение передано в приёмник
+     */
+    private boolean extractLong(Record record) {
+        if (record instanceof NumberRecord number) {
+            sink.accept((long) number.getValue());
+            return true;
+        }
+        if (record instanceof LabelSSTRecord label) {
+            String value = sharedStrings.getString(label.getSSTIndex()).getString();
+            return XlsxToListConverter.parseStringToLong(value.trim(), sink);
+        }
+        if (record instanceof LabelRecord label) {
+            return XlsxToListConverter.parseStringToLong(label.getValue().trim(), sink);
+        }
+        return false;
+    }
+
+    private boolean inTargetSheet() {
+        return sheets > 0 && sheets - 1 == targetSheet;
+    }
+
+    boolean hasSheet() {
+        return sheets > 0;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getValues() {
+        return values;
+    }
+
+    long getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,214 @@
+package com.test_task.n_minimal.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Квантильный скетч KLL (Karnin, Lang, Liberty) для приближённого N-го минимума.
+ * Значения попадают в уровни-компакторы: переполненный уровень сортируется, и каждое второе
+ * значение поднимается на уровень выше с удвоенным весом. Память O(k) независимо от размера файла,
+ * ошибка ранга не больше {@link #rankError()} с вероятностью 99%.
+ * В отличие от точного режима повторы значений считаются: N - ранг среди всех чисел столбца.
+ * Скетч заполняется в одном потоке; запросы к заполненному скетчу потокобезопасны.
+ */
+public final class KllSketch implements LongConsumer {
+
+    public static final int DEFAULT_K = 200;
+
+    // Уровни не уже этого, иначе нижние компакторы срабатывают слишком часто
+    private static final int MIN_LEVEL_WIDTH = 8;
+    private static final double LEVEL_DECAY = 2.0 / 3.0;
+
+    // Одинаковые файлы дают одинаковые ответы
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int k;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+
+    private long[][] levels = new long[1][MIN_LEVEL_WIDTH];
+    private int[] sizes = new int[1];
+    private int retained;
+    private int capacity;
+    private long count;
+    private boolean compacted;
+
+    // Все значения по возрастанию и накопленные веса; строится при первом запросе
+    private volatile SortedView view;
+
+    private record SortedView(long[] values, long[] cumulativeWeights) {
+    }
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_WIDTH) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_WIDTH);
+        }
+        this.k = k;
+        this.capacity = levelCapacity(0);
+    }
+
+    @Override
+    public void accept(long value) {
+        while (retained >= capacity) {
+            compress();
+        }
+        append(0, value);
+        count++;
+        view = null;
+    }
+
+    // Сколько чисел принято
+    public long count() {
+        return count;
+    }
+
+    // Сколько значений хранится, не больше примерно 3k
+    public int retained() {
+        return retained;
+    }
+
+    /**
+     * Граница ошибки ранга: истинный ранг ответа {@link #nthSmallest} отличается от N не больше,
+     * чем на эту величину. Пока уровни не сжимались, ответ точный и граница 0.
+     */
+    public long rankError() {
+        if (!compacted) {
+            return 0;
+        }
+        return (long) Math.ceil(normalizedRankError(k) * count);
+    }
+
+    // Относительная ошибка ранга KLL с вероятностью 99%, эмпирическая формула DataSketches
+    static double normalizedRankError(int k) {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    /**
+     * @param n ранг с 1 среди всех принятых чисел, не больше {@link #count()}
+     * @return значение, ранг которого приблизительно n
+     */
+    public long nthSmallest(long n) {
+        if (n < 1 || n > count) {
+            throw new IllegalArgumentException("Rank " + n + " is outside 1.." + count);
+        }
+        SortedView sorted = sortedView();
+        long[] cumulative = sorted.cumulativeWeights();
+        int position = Arrays.binarySearch(cumulative, n);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return sorted.values()[position];
+    }
+
+    /**
+     * Примерный объём в куче: хранимые значения, их веса после сортировки и заголовки массивов.
+     */
+    public long sizeInBytes() {
+        long bytes = 64;
+        for (long[] level : levels) {
+            bytes += 16 + 8L * level.length;
+        }
+        return bytes + 2 * (16 + 8L * retained);
+    }
+
+    private SortedView sortedView() {
+        SortedView sorted = view;
+        if (sorted == null) {
+            synchronized (this) {
+                sorted = view;
+                if (sorted == null) {
+                    sorted = buildView();
+                    view = sorted;
+                }
+            }
+        }
+        return sorted;
+    }
+
+    // Слияние отсортированных уровней; вес значения уровня h равен 2^h
+    private SortedView buildView() {
+        long[] values = new long[0];
+        long[] weights = new long[0];
+        for (int h = 0; h < levels.length; h++) {
+            long[] level = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(level);
+            long weight = 1L << h;
+
+            long[] mergedValues = new long[values.length + level.length];
+            long[] mergedWeights = new long[mergedValues.length];
+            int i = 0;
+            int j = 0;
+            for (int m = 0; m < mergedValues.length; m++) {
+                if (j == level.length || i < values.length && values[i] <= level[j]) {
+                    mergedValues[m] = values[i];
+                    mergedWeights[m] = weights[i++];
+                } else {
+                    mergedValues[m] = level[j++];
+                    mergedWeights[m] = weight;
+                }
+            }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i - 1];
+        }
+        return new SortedView(values, weights);
+    }
+
+    // Сжимает самый нижний переполненный уровень; он есть, раз переполнена сумма ёмкостей
+    private void compress() {
+        int h = 0;
+        while (sizes[h] < levelCapacity(h)) {
+            h++;
+        }
+        compact(h);
+    }
+
+    private void compact(int h) {
+        if (h + 1 == levels.length) {
+            addLevel();
+        }
+        long[] level = levels[h];
+        int size = sizes[h];
+        Arrays.sort(level, 0, size);
+
+        // При нечётном размере наименьшее значение остаётся на уровне, чтобы сумма весов не менялась
+        int kept = size & 1;
+        for (int i = kept + random.nextInt(2); i < size; i += 2) {
+            append(h + 1, level[i]);
+        }
+        retained -= size - kept;
+        sizes[h] = kept;
+        compacted = true;
+    }
+
+    private void addLevel() {
+        int height = levels.length + 1;
+        levels = Arrays.copyOf(levels, height);
+        levels[height - 1] = new long[MIN_LEVEL_WIDTH];
+        sizes = Arrays.copyOf(sizes, height);
+        capacity = 0;
+        for (int h = 0; h < height; h++) {
+            capacity += levelCapacity(h);
+        }
+    }
+
+    private void append(int h, long value) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], levels[h].length * 2);
+        }
+        levels[h][sizes[h]++] = value;
+        retained++;
+    }
+
+    // Ёмкость уровня убывает геометрически вниз от верхнего: k * (2/3)^(высота - 1 - h)
+    private int levelCapacity(int h) {
+        int depth = levels.length - 1 - h;
+        return Math.max(MIN_LEVEL_WIDTH, (int) Math.ceil(k * Math.pow(LEVEL_DECAY, depth)));
+    }
+}
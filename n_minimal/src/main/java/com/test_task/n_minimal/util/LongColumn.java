@@ -0,0 +1,143 @@
+package com.test_task.n_minimal.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Столбец чисел на примитивном массиве long[] с динамическим ростом.
+ * Заменяет List&lt;Long&gt; на пути конвертер - валидатор - сортировщик:
+ * 8 байт на значение вместо объекта Long и ссылки на него.
+ */
+public final class LongColumn {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] values;
+    private int size;
+
+    public LongColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongColumn(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 1)];
+    }
+
+    private LongColumn(long[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    public static LongColumn of(long... values) {
+        return new LongColumn(values.clone(), values.length);
+    }
+
+    // Адаптер для вызывающих, которые всё ещё работают со списками
+    public static LongColumn fromList(List<Long> list) {
+        long[] values = new long[list.size()];
+        int i = 0;
+        for (Long value : list) {
+            values[i++] = value;
+        }
+        return new LongColumn(values, values.length);
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, newCapacity());
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Дописывает в конец все значения другого столбца одним копированием массива.
+     */
+    public void addAll(LongColumn other) {
+        int required = size + other.size;
+        if (required < 0) {
+            throw new OutOfMemoryError("Column is too large");
+        }
+        if (required > values.length) {
+            values = Arrays.copyOf(values, Math.max(required, newCapacity()));
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size = required;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает внутренний массив без копирования. Значимы только первые {@link #size()} элементов.
+     * Алгоритмы выбора могут переупорядочивать его на месте.
+     */
+    public long[] array() {
+        return values;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Представление столбца в виде неизменяемого списка, значения упаковываются при чтении.
+     */
+    public List<Long> toList() {
+        return new AbstractList<>() {
+            @Override
+            public Long get(int index) {
+                return LongColumn.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int newCapacity() {
+        int capacity = values.length + (values.length >> 1);
+        if (capacity < 0 || capacity > Integer.MAX_VALUE - 8) {
+            if (values.length == Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("Column is too large");
+            }
+            return Integer.MAX_VALUE - 8;
+        }
+        return capacity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongColumn other)) return false;
+        return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Long.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,141 @@
+package com.test_task.n_minimal.util;
+
+/**
+ * Множество примитивных long без упаковки: открытая адресация с линейным пробированием,
+ * ёмкость - степень двойки, заполнение не больше половины. 0 в таблице означает пустую ячейку,
+ * поэтому само значение 0 хранится отдельным флагом. Не потокобезопасно.
+ */
+public final class LongHashSet {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private int mask;
+    private int resizeAt;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expected сколько значений ожидается; до этого числа таблица не перестраивается
+     */
+    public LongHashSet(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * @return true, если значения ещё не было в множестве
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = slot(value);
+        while (keys[slot] != 0) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        for (int slot = slot(value); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Удаляет значение со сдвигом следующих ячеек цепочки назад, поэтому надгробия не нужны.
+     *
+     * @return true, если значение было в множестве
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int slot = slot(value);
+        while (keys[slot] != value) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Ключ из цепочки переносится в освободившуюся ячейку, если его домашняя ячейка не между ними
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity == MAX_CAPACITY ? Integer.MAX_VALUE : capacity >>> 1;
+    }
+
+    // Наименьшая степень двойки не меньше 2 * expected
+    private static int capacityFor(int expected) {
+        if (expected >= MAX_CAPACITY >>> 1) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+    }
+}
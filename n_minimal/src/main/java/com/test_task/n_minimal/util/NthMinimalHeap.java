@@ -0,0 +1,94 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.ValueNProcessingException;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Накопитель N наименьших уникальных значений на примитивной max-куче.
+ * Принимает значения по одному, поэтому может получать их прямо из конвертера:
+ * память O(N) независимо от размера файла, время O(size * log N).
+ * Значения кучи дублируются в {@link LongHashSet}, поэтому повтор отбрасывается за O(1)
+ * даже на столбцах, где почти все значения повторяются.
+ * Без distinct повторы считаются, и N-й минимум - N-е по счёту среди всех значений.
+ */
+public class NthMinimalHeap implements LongConsumer {
+
+    private final long[] heap;
+    private final LongHashSet members;
+    private int count;
+
+    public NthMinimalHeap(int n) {
+        this(n, true);
+    }
+
+    public NthMinimalHeap(int n, boolean distinct) {
+        this.heap = new long[n];
+        this.members = distinct ? new LongHashSet(n) : null;
+    }
+
+    @Override
+    public void accept(long value) {
+        if (count < heap.length) {
+            if (members == null || members.add(value)) {
+                heap[count] = value;
+                siftUp(count++);
+            }
+        } else if (value < heap[0] && (members == null || members.add(value))) {
+            if (members != null) {
+                members.remove(heap[0]);
+            }
+            heap[0] = value;
+            siftDown();
+        }
+    }
+
+    // Сколько значений сейчас хранится, не больше N
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return N-е минимальное значение из всех принятых
+     * @throws ValueNProcessingException если значений (уникальных в режиме distinct) меньше N
+     */
+    public long nthMinimal() {
+        if (count < heap.length) {
+            throw new ValueNProcessingException(members != null
+                    ? Sorter.N_EXCEEDS_DISTINCT_COUNT : Sorter.N_EXCEEDS_VALUES_COUNT);
+        }
+        // В вершине max-кучи лежит наибольшее из N наименьших, то есть N-й минимум
+        return heap[0];
+    }
+
+    private void siftUp(int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private void siftDown() {
+        long value = heap[0];
+        int index = 0;
+        int half = count >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < count && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (value >= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.test_task.n_minimal.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Разбивка одного запроса по этапам для заголовка Server-Timing.
+ * Привязывается к потоку запроса на время его обработки; этапы, выполняемые
+ * в других потоках (массовый запрос, ожидание чужого разбора), в неё не попадают.
+ * Счётчики строк и пропущенных ячеек собираются только в режиме отладки.
+ */
+public final class QueryTrace implements AutoCloseable {
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+
+    private final boolean detailed;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    private String strategy;
+    private long rows;
+    private long values;
+    private long skipped;
+
+    private QueryTrace(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    /**
+     * Начинает трассировку запроса в текущем потоке.
+     *
+     * @param detailed собирать ли счётчики строк, значений и пропущенных ячеек
+     */
+    public static QueryTrace start(boolean detailed) {
+        QueryTrace trace = new QueryTrace(detailed);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * @return трассировка текущего потока или null, если запрос не трассируется
+     */
+    public static QueryTrace current() {
+        return CURRENT.get();
+    }
+
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    public void addDuration(String stage, long nanos) {
+        durations.merge(stage, nanos, Long::sum);
+    }
+
+    public void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
+
+    public void addScan(long rows, long values, long skipped) {
+        this.rows += rows;
+        this.values += values;
+        this.skipped += skipped;
+    }
+
+    /**
+     * @return значение заголовка Server-Timing, длительности в миллисекундах
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        durations.forEach((stage, nanos) -> appendTiming(header, stage, nanos));
+        appendTiming(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    /**
+     * @return отладочные сведения о запросе: стратегия выбора и счётчики разбора
+     */
+    public String details() {
+        return "strategy=" + strategy + "; rows=" + rows + "; values=" + values + "; skipped=" + skipped;
+    }
+
+    @Override
+    public void close() {
+        CURRENT.remove();
+    }
+
+    private static void appendTiming(StringBuilder header, String stage, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(stage).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+}
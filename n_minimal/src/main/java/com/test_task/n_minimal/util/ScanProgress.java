@@ -0,0 +1,129 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогресс, отмена и срок выполнения долгого запроса.
+ * Привязывается к потоку, выполняющему запрос; обработчик листа каждые
+ * {@link #CHECKPOINT_ROWS} строк сообщает число обработанных строк, а выбор в {@link Sorter}
+ * проверяет отмену с той же частотой. Отменённый или просроченный запрос прерывается в ближайшей проверке.
+ */
+public final class ScanProgress implements AutoCloseable {
+
+    public static final int CHECKPOINT_ROWS = 4096;
+
+    private static final ThreadLocal<ScanProgress> CURRENT = new ThreadLocal<>();
+
+    private volatile long rowsProcessed;
+    private volatile long estimatedRows = -1;
+    private volatile boolean cancelled;
+
+    // Срок по System.nanoTime(), 0 - без срока
+    private long deadlineNanos;
+    private long timeoutMillis;
+
+    /**
+     * @return прогресс текущего потока или null, если он не отслеживается
+     */
+    public static ScanProgress current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Прерывает запрос с {@link RequestTimeoutException}, если он выполняется дольше timeoutMillis.
+     * Вызывается до {@link #attach()}.
+     */
+    public ScanProgress withTimeout(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        return this;
+    }
+
+    /**
+     * Проверяет отмену и срок запроса текущего потока, если он отслеживается.
+     */
+    public static void checkCurrent() {
+        ScanProgress progress = CURRENT.get();
+        if (progress != null) {
+            progress.check();
+        }
+    }
+
+    /**
+     * Привязывает прогресс к текущему потоку до вызова {@link #close()}.
+     */
+    public ScanProgress attach() {
+        CURRENT.set(this);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        CURRENT.remove();
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    /**
+     * @return оценка числа строк листа по его размерности или -1, если она неизвестна
+     */
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    /**
+     * @return сколько наносекунд осталось до срока, не меньше 0
+     */
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Точка проверки в цикле разбора.
+     *
+     * @throws CancellationException   если запрос отменён
+     * @throws RequestTimeoutException если истёк срок запроса
+     */
+    public void checkpoint(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+        check();
+    }
+
+    /**
+     * @throws CancellationException   если запрос отменён
+     * @throws RequestTimeoutException если истёк срок запроса
+     */
+    public void check() {
+        if (cancelled) {
+            throw new CancellationException("Request was cancelled");
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+            throw new RequestTimeoutException(timeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.test_task.n_minimal.util;
+
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.function.LongConsumer;
+
+/**
+ * SAX-обработчик листа xlsx (xl/worksheets/sheetN.xml).
+ * Разбирает ячейки построчно и передаёт дальше только значения целевого столбца,
+ * не создавая объектов строк и ячеек.
+ */
+class SheetColumnHandler extends DefaultHandler {
+
+    private final SharedStrings sharedStrings;
+    private final LongConsumer sink;
+    private final int targetColumn;
+
+    // Состояние текущей ячейки
+    private int cellColumn;
+    private boolean inTargetCell;
+    private String cellType;
+    private boolean formula;
+    private boolean hasValue;
+    private boolean inInlineString;
+    private boolean inPhonetic;
+    private boolean collecting;
+    private final StringBuilder value = new StringBuilder();
+
+    // Счётчики для отладочной разбивки запроса
+    private long rows;
+    private long values;
+    private long skipped;
+
+    // Прогресс долгого запроса, null если не отслеживается
+    private final ScanProgress progress;
+
+    SheetColumnHandler(SharedStrings sharedStrings, LongConsumer sink, int targetColumn) {
+        this.sharedStrings = sharedStrings;
+        this.sink = sink;
+        this.targetColumn = targetColumn;
+        this.progress = ScanProgress.current();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row" -> {
+                cellColumn = -1;
+                if (++rows % ScanProgress.CHECKPOINT_ROWS == 0 && progress != null) {
+                    progress.checkpoint(rows);
+                }
+            }
+            case "dimension" -> {
+                if (progress != null) {
+                    progress.setEstimatedRows(lastRow(attributes.getValue("ref")));
+                }
+            }
+            case "c" -> {
+                String reference = attributes.getValue("r");
+                cellColumn = reference != null ? columnIndex(reference) : cellColumn + 1;
+                inTargetCell = cellColumn == targetColumn;
+                if (inTargetCell) {
+                    cellType = attributes.getValue("t");
+                    formula = false;
+                    hasValue = false;
+                    value.setLength(0);
+                }
+            }
+            case "f" -> formula |= inTargetCell;
+            case "v" -> startCollecting();
+            case "is" -> inInlineString = inTargetCell;
+            case "rPh" -> inPhonetic = true;
+            case "t" -> {
+                if (inInlineString && !inPhonetic) {
+                    startCollecting();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "v", "t" -> collecting = false;
+            case "rPh" -> inPhonetic = false;
+            case "is" -> inInlineString = false;
+            case "c" -> {
+                if (inTargetCell) {
+                    if (extractLong()) {
+                        values++;
+                    } else {
+                        skipped++;
+                    }
+                    inTargetCell = false;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        if (progress != null) {
+            progress.checkpoint(rows);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (collecting) {
+            value.append(ch, start, length);
+        }
+    }
+
+    private void startCollecting() {
+        if (inTargetCell) {
+            collecting = true;
+            hasValue = true;
+        }
+    }
+
+    /**
+     * Приводит значение ячейки к числу по тем же правилам, что и для XSSFWorkbook:
+     * числа усекаются до long, строки парсятся, формулы и прочие типы игнорируются.
+     * Результат сразу передаётся в приёмник без упаковки в Long.
+     *
+     * @return true, если значение передано в приёмник
+     */
+    private boolean extractLong() {
+        if (formula || !hasValue) {
+            return false;
+        }
+
+        if (cellType == null || cellType.equals("n")) {
+            double number;
+            try {
+                number = Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            sink.accept((long) number);
+            return true;
+        }
+
+        return switch (cellType) {
+            case "s" -> {
+                // Битый индекс общей строки - пропущенная ячейка, как в FastSheetReader
+                int index;
+                try {
+                    index = Integer.parseInt(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    yield false;
+                }
+                if (index < 0 || index >= sharedStrings.getCount()) {
+                    yield false;
+                }
+                yield XlsxToListConverter.parseStringToLong(sharedStrings.getItemAt(index).getString().trim(), sink);
+            }
+            case "inlineStr", "str" -> XlsxToListConverter.parseStringToLong(value.toString().trim(), sink);
+            default -> false;
+        };
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getValues() {
+        return values;
+    }
+
+    long getSkipped() {
+        return skipped;
+    }
+
+    // Номер последней строки по размерности листа, например "A1:C1000" -> 1000; -1 если не указан
+    static long lastRow(String ref) {
+        int separator = ref == null ? -1 : ref.indexOf(':');
+        if (separator < 0) {
+            return -1;
+        }
+        int i = separator + 1;
+        while (i < ref.length() && !Character.isDigit(ref.charAt(i))) {
+            i++;
+        }
+        try {
+            return Long.parseLong(ref.substring(i));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Индекс столбца по ссылке на ячейку, например "AB12" -> 27
+    static int columnIndex(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char ch = reference.charAt(i);
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.ValueNProcessingException;
+
+import java.nio.LongBuffer;
+
+/**
+ * Отсортированные по возрастанию уникальные значения столбца.
+ * N-й минимум и максимум берутся прямым обращением по индексу, счёт значений до X и в диапазоне -
+ * двоичным поиском.
+ * Значения лежат либо в массиве в куче, либо в отображённом в память файле индекса.
+ */
+public final class SortedColumn {
+
+    // Заголовок массива и самого объекта
+    private static final long OBJECT_OVERHEAD_BYTES = 32;
+
+    private final LongBuffer values;
+
+    public SortedColumn(long[] values) {
+        this(LongBuffer.wrap(values));
+    }
+
+    public SortedColumn(LongBuffer values) {
+        this.values = values;
+    }
+
+    public int size() {
+        return values.limit();
+    }
+
+    public long get(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * @param n порядковый номер минимума, начиная с 1
+     * @return N-е минимальное уникальное значение
+     * @throws ValueNProcessingException если уникальных значений меньше N
+     */
+    public long nthMinimal(int n) {
+        if (n > size()) {
+            throw new ValueNProcessingException(Sorter.N_EXCEEDS_DISTINCT_COUNT);
+        }
+        return values.get(n - 1);
+    }
+
+    /**
+     * @param n порядковый номер максимума, начиная с 1
+     * @return N-е максимальное уникальное значение
+     * @throws ValueNProcessingException если уникальных значений меньше N
+     */
+    public long nthMaximal(int n) {
+        if (n > size()) {
+            throw new ValueNProcessingException(Sorter.N_EXCEEDS_DISTINCT_COUNT);
+        }
+        return values.get(size() - n);
+    }
+
+    /**
+     * Процентиль по методу ближайшего ранга среди уникальных значений.
+     *
+     * @param percentile от 0 до 100
+     * @return наименьшее значение, не меньше которого percentile процентов уникальных значений
+     */
+    public long percentile(double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * size());
+        return values.get(Math.max(rank, 1) - 1);
+    }
+
+    // Сколько уникальных значений не больше x
+    public int countAtMost(long x) {
+        return upperBound(x);
+    }
+
+    // Индекс первого значения не меньше x, size() если таких нет
+    public int lowerBound(long x) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values.get(middle) < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Индекс первого значения больше x, size() если таких нет
+    public int upperBound(long x) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values.get(middle) <= x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Копия значений только для чтения, позиция независима от других потоков.
+     */
+    public LongBuffer values() {
+        return values.asReadOnlyBuffer();
+    }
+
+    /**
+     * Объём в куче. Отображённые в память значения живут в page cache и в куче места не занимают.
+     */
+    public long sizeInBytes() {
+        return values.isDirect() ? OBJECT_OVERHEAD_BYTES : sizeInBytes(size());
+    }
+
+    // Объём в куче столбца из size значений
+    public static long sizeInBytes(long size) {
+        return OBJECT_OVERHEAD_BYTES + 8L * size;
+    }
+}
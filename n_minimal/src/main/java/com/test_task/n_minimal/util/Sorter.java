@@ -1,8 +1,10 @@
 package com.test_task.n_minimal.util;
 
+import com.test_task.n_minimal.exception.ValueNProcessingException;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -12,13 +14,111 @@ import java.util.List;
 @Component
 public class Sorter {
 
+    static final String N_EXCEEDS_DISTINCT_COUNT = "N exceeds the number of distinct values in first column";
+    static final String N_EXCEEDS_VALUES_COUNT = "N exceeds the number of values in first column";
+
+    // Отрезки короче этого порога досортировываются вставками
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    // Начальная ёмкость множества уникальных значений; дальше оно растёт по мере появления новых,
+    // поэтому на столбцах с повторами таблица остаётся размером с число уникальных значений
+    private static final int DISTINCT_INITIAL_EXPECTED = 1 << 16;
+
+    /**
+     * Сортирует копию списка по возрастанию, повторы сохраняются; входной список не меняется.
+     * Уникальные значения отбираются при выборе N-го минимума, см. {@link #select(long[], int, int, boolean)}.
+     */
     public List<Long> sort(List<Long> unsorted) {
-        List<Long> list = removeDuplicates(unsorted);
+        List<Long> list = new ArrayList<>(unsorted);
         quickSort(list, 0, list.size() - 1);
 
         return list;
     }
 
+    public long selectWithHeap(LongColumn column, int n) {
+        return selectWithHeap(column.array(), column.size(), n);
+    }
+
+    /**
+     * Находит N-е минимальное уникальное значение без полной сортировки.
+     * В {@link NthMinimalHeap} держатся только N наименьших уникальных значений, поэтому
+     * время O(size * log N), а дополнительная память O(N).
+     *
+     * @param values массив значений, не изменяется
+     * @param size   количество значений в массиве
+     * @param n      порядковый номер минимума, начиная с 1
+     * @return N-е минимальное уникальное значение
+     * @throws ValueNProcessingException если уникальных значений меньше N
+     */
+    public long selectWithHeap(long[] values, int size, int n) {
+        return selectWithHeap(values, size, n, true);
+    }
+
+    /**
+     * @param distinct true - N-е среди уникальных значений, false - повторы считаются
+     */
+    public long selectWithHeap(long[] values, int size, int n, boolean distinct) {
+        NthMinimalHeap heap = new NthMinimalHeap(n, distinct);
+        for (int i = 0; i < size; i++) {
+            heap.accept(values[i]);
+        }
+        return heap.nthMinimal();
+    }
+
+    /**
+     * Выбор introselect-ом прямо во внутреннем массиве столбца, порядок значений в столбце меняется.
+     */
+    public long select(LongColumn column, int n) {
+        return select(column, n, true);
+    }
+
+    public long select(LongColumn column, int n, boolean distinct) {
+        return select(column.array(), column.size(), n, distinct);
+    }
+
+    /**
+     * Находит N-е минимальное уникальное значение introselect-ом на месте.
+     * Сначала массив сжимается до уникальных значений, затем quickselect с медианой
+     * из трёх сужает диапазон. Если глубина превышает 2*log2(size), оставшийся диапазон
+     * дорешивается через медиану медиан, поэтому худший случай остаётся линейным.
+     *
+     * @param values массив значений, переупорядочивается в процессе выбора
+     * @param size   количество значений в массиве
+     * @param n      порядковый номер минимума, начиная с 1
+     * @return N-е минимальное уникальное значение
+     * @throws ValueNProcessingException если уникальных значений меньше N
+     */
+    public long select(long[] values, int size, int n) {
+        return select(values, size, n, true);
+    }
+
+    /**
+     * @param distinct true - повторы отбрасываются до выбора, false - N-е по счёту среди всех значений
+     * @throws ValueNProcessingException если значений (уникальных при distinct) меньше N
+     */
+    public long select(long[] values, int size, int n, boolean distinct) {
+        int count = distinct ? distinctInPlace(values, size) : size;
+        if (count < n) {
+            throw new ValueNProcessingException(distinct ? N_EXCEEDS_DISTINCT_COUNT : N_EXCEEDS_VALUES_COUNT);
+        }
+
+        return introSelect(values, 0, count - 1, n - 1);
+    }
+
+    /**
+     * Сортирует уникальные значения столбца для последующих запросов по любому N.
+     * Внутренний массив столбца переупорядочивается.
+     */
+    public SortedColumn sortDistinct(LongColumn column) {
+        long[] values = column.array();
+        int distinct = distinctInPlace(values, column.size());
+        // Arrays.sort не прерывается, поэтому срок проверяется перед сортировкой
+        ScanProgress.checkCurrent();
+        Arrays.sort(values, 0, distinct);
+
+        return new SortedColumn(Arrays.copyOf(values, distinct));
+    }
+
     private void quickSort(List<Long> list, int low, int high) {
         if (low < high) {
             int pivotIndex = partition(list, low, high);
@@ -41,18 +141,128 @@ public class Sorter {
         return i + 1;
     }
 
-    private List<Long> removeDuplicates(List<Long> ls) {
-        if (ls == null || ls.isEmpty()) return new ArrayList<>();
+    // Сдвигает уникальные значения в начало массива за один проход, возвращает их количество
+    private static int distinctInPlace(long[] values, int size) {
+        LongHashSet seen = new LongHashSet(Math.min(size, DISTINCT_INITIAL_EXPECTED));
+        int count = 0;
 
-        List<Long> result = new ArrayList<>();
-        result.add(ls.get(0));
+        for (int i = 0; i < size; i++) {
+            if (i % ScanProgress.CHECKPOINT_ROWS == 0) {
+                ScanProgress.checkCurrent();
+            }
+            long value = values[i];
+            if (seen.add(value)) {
+                values[count++] = value;
+            }
+        }
+        return count;
+    }
+
+    private static long introSelect(long[] values, int low, int high, int k) {
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(high - low + 1));
+        int[] bounds = new int[2];
 
-        for (int i = 1; i < ls.size(); i++) {
-            if (!ls.get(i).equals(ls.get(i - 1))) {
-                result.add(ls.get(i));
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            // Каждый шаг - проход по диапазону, поэтому отмена проверяется на каждом шаге
+            ScanProgress.checkCurrent();
+            if (depthLimit-- == 0) {
+                return medianOfMediansSelect(values, low, high, k);
             }
+
+            long pivot = medianOfThree(values[low], values[(low + high) >>> 1], values[high]);
+            partition(values, low, high, pivot, bounds);
+
+            if (k < bounds[0]) {
+                high = bounds[0] - 1;
+            } else if (k > bounds[1]) {
+                low = bounds[1] + 1;
+            } else {
+                return pivot;
+            }
+        }
+
+        insertionSort(values, low, high);
+        return values[k];
+    }
+
+    // Детерминированный выбор за линейное время в худшем случае
+    private static long medianOfMediansSelect(long[] values, int low, int high, int k) {
+        int[] bounds = new int[2];
+
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            long pivot = medianOfMedians(values, low, high);
+            partition(values, low, high, pivot, bounds);
+
+            if (k < bounds[0]) {
+                high = bounds[0] - 1;
+            } else if (k > bounds[1]) {
+                low = bounds[1] + 1;
+            } else {
+                return pivot;
+            }
+        }
+
+        insertionSort(values, low, high);
+        return values[k];
+    }
+
+    // Медианы групп по 5 переносятся в начало диапазона, и среди них рекурсивно ищется медиана
+    private static long medianOfMedians(long[] values, int low, int high) {
+        int store = low;
+        for (int i = low; i <= high; i += 5) {
+            int groupHigh = Math.min(i + 4, high);
+            insertionSort(values, i, groupHigh);
+            swap(values, (i + groupHigh) >>> 1, store++);
+        }
+
+        int middle = low + (store - low - 1) / 2;
+        return medianOfMediansSelect(values, low, store - 1, middle);
+    }
+
+    /**
+     * Трёхпутевое разбиение: после него [low, bounds[0]) меньше опорного,
+     * [bounds[0], bounds[1]] равны ему, (bounds[1], high] больше.
+     */
+    private static void partition(long[] values, int low, int high, long pivot, int[] bounds) {
+        int lt = low;
+        int i = low;
+        int gt = high;
+
+        while (i <= gt) {
+            if (values[i] < pivot) {
+                swap(values, lt++, i++);
+            } else if (values[i] > pivot) {
+                swap(values, i, gt--);
+            } else {
+                i++;
+            }
+        }
+        bounds[0] = lt;
+        bounds[1] = gt;
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        if (a < b) {
+            return b < c ? b : Math.max(a, c);
         }
+        return a < c ? a : Math.max(b, c);
+    }
+
+    private static void insertionSort(long[] values, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            long value = values[i];
+            int j = i - 1;
+            while (j >= low && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
 
-        return result;
+    private static void swap(long[] values, int i, int j) {
+        long tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
     }
 }
@@ -14,12 +14,16 @@ public class Validator {
 
     // Статические константы для сообщений об ошибках
     private static final String INVALID_CHARS = "Invalid characters in file path";
-    private static final String NOT_XLSX_FILE = "File is not an Excel .xlsx file";
+    private static final String UNSUPPORTED_FILE = "File is not an Excel .xlsx, .xls or .csv file";
     private static final String FILE_NOT_FOUND = "File not found";
     private static final String N_NOT_INTEGER = "N value is not a valid integer";
     private static final String N_BELOW_ZERO = "N value must be positive, starting from 1";
     private static final String PATH_IS_NOT_A_FILE = "Path is not a file";
     private static final String N_EXCEEDS_NUMBERS_COUNT = "N exceeds the number of values in first column";
+    private static final String PERCENTILE_NOT_NUMBER = "Percentile is not a valid number";
+    private static final String PERCENTILE_OUT_OF_RANGE = "Percentile must be between 0 and 100";
+    private static final String RANGE_REVERSED = "Range start must not exceed range end";
+    private static final String LIMIT_NEGATIVE = "Limit must not be negative";
 
 
     public void validateInput(String link, String N) {
@@ -33,6 +37,19 @@ public class Validator {
             throw new ValueNNotFoundException("N value cannot be null");
         }
 
+        validateLink(link);
+        validateN(N);
+    }
+
+    /**
+     * Проверка ссылки на файл без проверки N, например для пакетных запросов
+     */
+    public void validateLink(String link) {
+        // 1. Проверка что link не null
+        if (link == null || link.isEmpty()) {
+            throw new LinkNotFoundException("File link cannot be null");
+        }
+
         // 3. Проверка что в пути нет запрещённых символов для Windows и Linux
         if (link.matches(".*[<>\"|?*].*")) {
             throw new LinkProcessingException(INVALID_CHARS);
@@ -44,14 +61,28 @@ public class Validator {
             throw new FileProcessingException(FILE_NOT_FOUND);
         }
 
-        // 5. Проверка что это xlsx файл
+        // 5. Проверка что это xlsx, xls или csv файл
 
         if (!file.isFile()) {
             throw new LinkProcessingException(PATH_IS_NOT_A_FILE);
         }
 
-        if (!link.toLowerCase().endsWith(".xlsx")) {
-            throw new FileProcessingException(NOT_XLSX_FILE);
+        String lowerCaseLink = link.toLowerCase();
+        if (!lowerCaseLink.endsWith(".xlsx") && !lowerCaseLink.endsWith(".xls")
+                && !lowerCaseLink.endsWith(".csv")) {
+            throw new FileProcessingException(UNSUPPORTED_FILE);
+        }
+    }
+
+    /**
+     * Проверка значения N
+     *
+     * @return N в виде числа
+     */
+    public int validateN(String N) {
+        // 2. Проверка что N не null
+        if (N == null || N.isEmpty()) {
+            throw new ValueNNotFoundException("N value cannot be null");
         }
 
         // 6. Проверка что N является integer
@@ -66,11 +97,81 @@ public class Validator {
         if (valueN < 1) {
             throw new ValueNProcessingException(N_BELOW_ZERO);
         }
+        return valueN;
+    }
+
+    /**
+     * Проверка процентиля
+     *
+     * @return процентиль от 0 до 100
+     */
+    public double validatePercentile(String percentile) {
+        if (percentile == null || percentile.isEmpty()) {
+            throw new ValueNNotFoundException("Percentile value cannot be null");
+        }
+
+        double value;
+        try {
+            value = Double.parseDouble(percentile);
+        } catch (NumberFormatException e) {
+            throw new ValueNProcessingException(PERCENTILE_NOT_NUMBER);
+        }
+
+        // NaN не проходит ни одно сравнение
+        if (!(value >= 0 && value <= 100)) {
+            throw new ValueNProcessingException(PERCENTILE_OUT_OF_RANGE);
+        }
+        return value;
+    }
+
+    /**
+     * Проверка значения, с которым сравниваются числа столбца
+     *
+     * @param name имя параметра для текста ошибки
+     * @return значение в виде числа
+     */
+    public long validateValue(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            throw new ValueNNotFoundException(name + " value cannot be null");
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ValueNProcessingException(name + " value is not a valid integer");
+        }
+    }
+
+    // Проверка что начало диапазона не больше конца
+    public void validateRange(long from, long to) {
+        if (from > to) {
+            throw new ValueNProcessingException(RANGE_REVERSED);
+        }
+    }
+
+    // Проверка что число возвращаемых значений не отрицательно
+    public void validateLimit(int limit) {
+        if (limit < 0) {
+            throw new ValueNProcessingException(LIMIT_NEGATIVE);
+        }
     }
 
     // Проверка что количество цифр в 1 столбце >= N
+    public void validateNWithColumnSize(LongColumn numbers, int N) {
+        validateNWithSize(numbers.size(), N);
+    }
+
+    // Адаптер для вызывающих, которые работают со списками
     public void validateNWithListSize(List<Long> numbers, int N) {
-        if (numbers.size() < N) {
+        validateNWithSize(numbers.size(), N);
+    }
+
+    // Проверка по количеству значений, посчитанному при потоковом чтении без сборки столбца
+    public void validateNWithValuesCount(long count, int N) {
+        validateNWithSize(count, N);
+    }
+
+    private void validateNWithSize(long size, int N) {
+        if (size < N) {
             throw new ValueNProcessingException(N_EXCEEDS_NUMBERS_COUNT);
         }
     }
@@ -0,0 +1,44 @@
+package com.test_task.n_minimal.util;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SAX-обработчик xl/workbook.xml: имена листов по порядку и идентификаторы их связей.
+ * По идентификатору связи открывается только запись архива нужного листа.
+ */
+class WorkbookSheetsHandler extends DefaultHandler {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> relationIds = new ArrayList<>();
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if (!"sheet".equals(localName)) {
+            return;
+        }
+        names.add(attributes.getValue("name"));
+        relationIds.add(relationId(attributes));
+    }
+
+    // Атрибут r:id; пространство имён связей отличается у Transitional и Strict OOXML
+    private static String relationId(Attributes attributes) {
+        for (int i = 0; i < attributes.getLength(); i++) {
+            if ("id".equals(attributes.getLocalName(i)) && attributes.getURI(i).endsWith("relationships")) {
+                return attributes.getValue(i);
+            }
+        }
+        return null;
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    String getRelationId(int sheetIndex) {
+        return relationIds.get(sheetIndex);
+    }
+}
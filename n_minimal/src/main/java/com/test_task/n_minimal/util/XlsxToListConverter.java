@@ -2,93 +2,372 @@ package com.test_task.n_minimal.util;
 
 import com.test_task.n_minimal.exception.LinkProcessingException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.Record;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
 import org.apache.poi.openxml4j.exceptions.NotOfficeXmlFileException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NotOLE2FileException;
+import org.apache.poi.poifs.filesystem.OfficeXmlFileException;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.RecordFormatException;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 
 /**
- * Класс конвернтации Excel файла в список чисел
+ * Класс конвернтации Excel файла в список чисел.
+ * Лист читается потоково по байтам {@link FastSheetReader} (или через SAX, если тот не подходит),
+ * в памяти остаются только числа выбранного столбца в примитивном {@link LongColumn}. Лист находится по xl/workbook.xml и его связям,
+ * поэтому распаковывается только запись архива этого листа. Файлы .xls читаются потоково через {@link HssfColumnListener},
+ * файлы .csv разбираются параллельно {@link CsvColumnReader}.
  */
 @Component
 public class XlsxToListConverter {
 
     private static final String NO_SHEETS_IN_FILE = "Excel file contains no sheets";
     private static final String NO_NUMBERS_IN_FIRST_COLUMN = "No numbers found in first column";
+    private static final String CSV_HAS_NO_SHEETS = "CSV file has no sheets";
 
+    private final CsvColumnReader csvReader =
+            new CsvColumnReader(ForkJoinPool.commonPool(), CsvColumnReader.DEFAULT_CHUNK_SIZE);
+
+    // Лист xlsx разбирается FastSheetReader, а SAX остаётся для листов, которые тот не поддерживает
+    private final boolean fastSheetReader;
+
+    public XlsxToListConverter() {
+        this(true);
+    }
+
+    /**
+     * @param fastSheetReader false - всегда читать лист xlsx через SAX, например для сравнения в бенчмарке
+     */
+    public XlsxToListConverter(boolean fastSheetReader) {
+        this.fastSheetReader = fastSheetReader;
+    }
+
+    /**
+     * Адаптер для вызывающих, которым нужен список. Значения упаковываются только при чтении.
+     */
     public List<Long> convert(String link) {
-        List<Long> numbers = new ArrayList<>();
+        return convertToColumn(link).toList();
+    }
+
+    public LongColumn convertToColumn(String link) {
+        return convertToColumn(link, ColumnSelector.FIRST);
+    }
+
+    public LongColumn convertToColumn(String link, ColumnSelector selector) {
+        if (isCsv(link)) {
+            LongColumn numbers = readCsv(link, selector, null).values;
+            requireNumbers(numbers.size());
+            return numbers;
+        }
+        LongColumn numbers = new LongColumn();
+
+        read(link, selector, numbers::add);
+
+        return numbers;
+    }
+
+    public long read(String link, LongConsumer sink) {
+        return read(link, ColumnSelector.FIRST, sink);
+    }
+
+    /**
+     * Передаёт числа выбранного столбца в приёмник по мере чтения, не собирая их в память.
+     * CSV разбирается кусками параллельно, и числа куска передаются после его разбора:
+     * в памяти только разбираемые куски, а порядок строк не сохраняется.
+     *
+     * @param link     ссылка на локальный файл
+     * @param selector лист и столбец
+     * @param sink     приёмник значений, например накопитель выбора N-го минимума
+     * @return количество переданных значений
+     */
+    public long read(String link, ColumnSelector selector, LongConsumer sink) {
+        if (isCsv(link)) {
+            long count = readCsv(link, selector, sink).count;
+            requireNumbers(count);
+            return count;
+        }
+        long[] count = new long[1];
 
-        try (Workbook workbook = new XSSFWorkbook(new File(link))) {
+        readColumn(link, selector, value -> {
+            count[0]++;
+            sink.accept(value);
+        });
+
+        requireNumbers(count[0]);
+        return count[0];
+    }
+
+    /**
+     * Приводит лист к одному написанию для ключей кеша: первый лист - к null, остальные - к имени из книги.
+     * Так выбор по имени в другом регистре, по номеру и без листа даёт один и тот же лист и один ключ.
+     * Читается только список листов, сами листы не распаковываются.
+     *
+     * @throws LinkProcessingException если такого листа нет или у файла нет листов
+     */
+    public ColumnSelector resolveSheet(String link, ColumnSelector selector) {
+        if (selector.sheet() == null) {
+            return selector;
+        }
+        if (isCsv(link)) {
+            throw new LinkProcessingException(CSV_HAS_NO_SHEETS);
+        }
+        List<String> names = isXls(link) ? readXlsSheetNames(link) : readXlsxSheetNames(link);
+        int sheet = selector.sheetIndex(names);
+        return new ColumnSelector(sheet == 0 ? null : names.get(sheet), selector.column());
+    }
+
+    // Проверка что файл содержит хотя бы 1 число в первом столбце
+    private static void requireNumbers(long count) {
+        if (count == 0) {
+            throw new ValueNProcessingException(NO_NUMBERS_IN_FIRST_COLUMN);
+        }
+    }
+
+    static boolean isXls(String link) {
+        return link.toLowerCase().endsWith(".xls");
+    }
+
+    // Книга BIFF читается событиями HSSF без построения HSSFWorkbook в памяти
+    private void readXlsColumn(String link, ColumnSelector selector, LongConsumer sink) {
+        QueryTrace trace = QueryTrace.current();
+        long start = System.nanoTime();
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(new File(link), true)) {
+            long opened = System.nanoTime();
+
+            HssfColumnListener listener = new HssfColumnListener(sink, selector);
+            new HSSFEventFactory().abortableProcessWorkbookEvents(listener.request(), fileSystem);
 
             // Проверка что файл содержит хотя бы 1 лист
-            if (workbook.getNumberOfSheets() == 0) {
+            if (!listener.hasSheet()) {
                 throw new LinkProcessingException(NO_SHEETS_IN_FILE);
             }
 
-            // Получаем первый лист
-            Sheet sheet = workbook.getSheetAt(0);
+            if (trace != null) {
+                trace.addDuration("open", opened - start);
+                trace.addDuration("parse", System.nanoTime() - opened);
+                if (trace.isDetailed()) {
+                    trace.addScan(listener.getRows(), listener.getValues(), listener.getSkipped());
+                }
+            }
+        } catch (NotOLE2FileException | OfficeXmlFileException | EncryptedDocumentException e) {
+            throw new LinkProcessingException("Invalid Excel file format" + e.getMessage());
+        } catch (IOException | HSSFUserException | RecordFormatException e) {
+            throw new LinkProcessingException("Error reading Excel file: " + e.getMessage());
+        }
+    }
+
+    // Имена листов из записей BoundSheet; они идут до первого листа, дальше книга не читается
+    private static List<String> readXlsSheetNames(String link) {
+        List<String> names = new ArrayList<>();
+        AbortableHSSFListener listener = new AbortableHSSFListener() {
+            @Override
+            public short abortableProcessRecord(Record record) {
+                if (record instanceof BoundSheetRecord sheet) {
+                    names.add(sheet.getSheetname());
+                    return 0;
+                }
+                return record instanceof BOFRecord bof && bof.getType() != BOFRecord.TYPE_WORKBOOK ? (short) 1 : 0;
+            }
+        };
+        HSSFRequest request = new HSSFRequest();
+        request.addListener(listener, BoundSheetRecord.sid);
+        request.addListener(listener, BOFRecord.sid);
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(new File(link), true)) {
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fileSystem);
+        } catch (NotOLE2FileException | OfficeXmlFileException | EncryptedDocumentException e) {
+            throw new LinkProcessingException("Invalid Excel file format" + e.getMessage());
+        } catch (IOException | HSSFUserException | RecordFormatException e) {
+            throw new LinkProcessingException("Error reading Excel file: " + e.getMessage());
+        }
+
+        // Проверка что файл содержит хотя бы 1 лист
+        if (names.isEmpty()) {
+            throw new LinkProcessingException(NO_SHEETS_IN_FILE);
+        }
+        return names;
+    }
+
+    private static List<String> readXlsxSheetNames(String link) {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(new File(link), PackageAccess.READ);
+            return readSheets(new XSSFReader(pkg)).getNames();
+        } catch (NotOfficeXmlFileException | InvalidFormatException e) {
+            throw new LinkProcessingException("Invalid Excel file format" + e.getMessage());
+        } catch (InvalidOperationException | IOException | OpenXML4JException | SAXException
+                 | ParserConfigurationException e) {
+            throw new LinkProcessingException("Error reading Excel file: " + e.getMessage());
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    static boolean isCsv(String link) {
+        return link.toLowerCase().endsWith(".csv");
+    }
+
+    // С приёмником числа передаются в него по кускам, без приёмника собираются в Scan.values
+    private CsvColumnReader.Scan readCsv(String link, ColumnSelector selector, LongConsumer sink) {
+        if (selector.sheet() != null) {
+            throw new LinkProcessingException(CSV_HAS_NO_SHEETS);
+        }
+        QueryTrace trace = QueryTrace.current();
+        long start = System.nanoTime();
+        CsvColumnReader.Scan scan;
+        try {
+            scan = csvReader.read(link, selector.columnIndex(), sink);
+        } catch (UncheckedIOException e) {
+            throw new LinkProcessingException("Error reading CSV file: " + e.getCause().getMessage());
+        }
+
+        if (trace != null) {
+            trace.addDuration("parse", System.nanoTime() - start);
+            if (trace.isDetailed()) {
+                trace.addScan(scan.rows, scan.count, scan.skipped);
+            }
+        }
+        return scan;
+    }
+
+    private void readColumn(String link, ColumnSelector selector, LongConsumer sink) {
+        if (isXls(link)) {
+            readXlsColumn(link, selector, sink);
+            return;
+        }
+        int column = selector.columnIndex();
+        QueryTrace trace = QueryTrace.current();
+        long start = System.nanoTime();
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(new File(link), PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            String sheetRelationId = findSheet(reader, selector);
 
-            // Проходим по всем строкам первого столбца
-            for (Row row : sheet) {
-                Cell cell = row.getCell(0);
+            long opened = System.nanoTime();
 
-                if (cell != null) {
-                    Long value = extractLong(cell);
-                    if (value != null) {
-                        numbers.add(value);
-                    }
+            // Разбираем лист построчно, сохраняя только выбранный столбец
+            long rows;
+            long values;
+            long skipped;
+            ColumnSharedStrings columnStrings = new ColumnSharedStrings();
+            FastSheetReader fastReader = new FastSheetReader(columnStrings, sink, column);
+            boolean fastRead;
+            try (InputStream sheet = reader.getSheet(sheetRelationId)) {
+                fastRead = fastSheetReader && fastReader.read(sheet);
+            }
+            if (fastRead) {
+                // Из общих строк загружаются только те, на которые ссылается столбец
+                if (fastReader.hasPendingStrings()) {
+                    columnStrings.load(pkg);
+                    fastReader.flush();
+                }
+                rows = fastReader.getRows();
+                values = fastReader.getValues();
+                skipped = fastReader.getSkipped();
+            } else {
+                ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+                SheetColumnHandler handler = new SheetColumnHandler(sharedStrings, sink, column);
+                try (InputStream sheet = reader.getSheet(sheetRelationId)) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(handler);
+                    parser.parse(new InputSource(sheet));
                 }
+                rows = handler.getRows();
+                values = handler.getValues();
+                skipped = handler.getSkipped();
             }
 
-            // Проверка что файл содержит хотя бы 1 число в первом столбце
-            if (numbers.isEmpty()) {
-                throw new ValueNProcessingException(NO_NUMBERS_IN_FIRST_COLUMN);
+            if (trace != null) {
+                trace.addDuration("open", opened - start);
+                trace.addDuration("parse", System.nanoTime() - opened);
+                if (trace.isDetailed()) {
+                    trace.addScan(rows, values, skipped);
+                }
             }
 
         } catch (NotOfficeXmlFileException | InvalidFormatException e) {
             throw new LinkProcessingException("Invalid Excel file format" + e.getMessage());
-        } catch (InvalidOperationException | IOException e) {
+        } catch (InvalidOperationException | IOException | OpenXML4JException | SAXException
+                 | ParserConfigurationException e) {
             throw new LinkProcessingException("Error reading Excel file: " + e.getMessage());
+        } finally {
+            // Пакет открыт только на чтение, поэтому закрываем без сохранения
+            if (pkg != null) {
+                pkg.revert();
+            }
         }
-        return numbers;
     }
 
-    private static Long extractLong(Cell cell) {
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                double numericValue = cell.getNumericCellValue();
-                return (long) numericValue;
+    // Идентификатор связи выбранного листа из xl/workbook.xml; сами листы при этом не распаковываются
+    private static String findSheet(XSSFReader reader, ColumnSelector selector)
+            throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        WorkbookSheetsHandler sheets = readSheets(reader);
+        String relationId = sheets.getRelationId(selector.sheetIndex(sheets.getNames()));
+        if (relationId == null) {
+            throw new LinkProcessingException("Invalid Excel file format: sheet has no relationship");
+        }
+        return relationId;
+    }
 
-            case STRING:
-                String stringValue = cell.getStringCellValue().trim();
-                return parseStringToLong(stringValue);
+    private static WorkbookSheetsHandler readSheets(XSSFReader reader)
+            throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        WorkbookSheetsHandler sheets = new WorkbookSheetsHandler();
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(sheets);
+            parser.parse(new InputSource(workbook));
+        }
 
-            default:
-                return null;
+        // Проверка что файл содержит хотя бы 1 лист
+        if (sheets.getNames().isEmpty()) {
+            throw new LinkProcessingException(NO_SHEETS_IN_FILE);
         }
+        return sheets;
     }
 
-    private static Long parseStringToLong(String value) {
+    // Строки, не являющиеся целым числом, пропускаются; возвращает true, если число передано в приёмник
+    static boolean parseStringToLong(String value, LongConsumer sink) {
         if (value == null || value.isEmpty()) {
-            return null;
+            return false;
         }
 
+        long number;
         try {
             String cleanedValue = value.replace(" ", "");
-            return Long.parseLong(cleanedValue);
+            number = Long.parseLong(cleanedValue);
         } catch (NumberFormatException e) {
-            return null;
+            return false;
         }
+        sink.accept(number);
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.test_task.n_minimal.controller;
+
+import com.test_task.n_minimal.dto.RangeResult;
+import com.test_task.n_minimal.exception.ValueNProcessingException;
+import com.test_task.n_minimal.service.NMinimalService;
+import com.test_task.n_minimal.util.ColumnSelector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ColumnQueryControllerTest {
+
+    @Mock
+    private NMinimalService service;
+
+    @InjectMocks
+    private ColumnQueryController controller;
+
+    @Test
+    void getNthMaximal_trimmedInput_returnsOkWithResult() {
+        // Given
+        when(service.getNthMaximal("data.xlsx", "2", ColumnSelector.FIRST)).thenReturn(90L);
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMaximal(" data.xlsx ", " 2 ", null, null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(90L, response.getBody());
+    }
+
+    @Test
+    void getPercentile_selectedColumn_passesSelector() {
+        // Given
+        ColumnSelector selector = new ColumnSelector("Data", "C");
+        when(service.getPercentile("data.xlsx", "99.9", selector)).thenReturn(1000L);
+
+        // When
+        ResponseEntity<Long> response = controller.getPercentile("data.xlsx", "99.9", "Data", "C");
+
+        // Then
+        assertEquals(1000L, response.getBody());
+    }
+
+    @Test
+    void countAtMost_validInput_returnsCount() {
+        // Given
+        when(service.countAtMost("data.xlsx", "-5", ColumnSelector.FIRST)).thenReturn(3);
+
+        // When
+        ResponseEntity<Integer> response = controller.countAtMost("data.xlsx", " -5", null, null);
+
+        // Then
+        assertEquals(3, response.getBody());
+    }
+
+    @Test
+    void getRange_validInput_returnsCountAndValues() {
+        // Given
+        RangeResult range = new RangeResult(1L, 10L, 4, List.of(1L, 2L));
+        when(service.getRange("data.xlsx", "1", "10", 2, ColumnSelector.FIRST)).thenReturn(range);
+
+        // When
+        ResponseEntity<RangeResult> response = controller.getRange("data.xlsx", "1", "10", 2, null, null);
+
+        // Then
+        assertEquals(range, response.getBody());
+    }
+
+    @Test
+    void getRange_reversedRange_propagatesException() {
+        // Given
+        when(service.getRange("data.xlsx", "10", "1", 1000, ColumnSelector.FIRST))
+                .thenThrow(new ValueNProcessingException("Range start must not exceed range end"));
+
+        // When & Then
+        assertThrows(ValueNProcessingException.class,
+                () -> controller.getRange("data.xlsx", "10", "1", 1000, null, null));
+    }
+}
@@ -0,0 +1,67 @@
+package com.test_task.n_minimal.controller;
+
+import com.test_task.n_minimal.dto.JobRequest;
+import com.test_task.n_minimal.dto.JobState;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.exception.JobNotFoundException;
+import com.test_task.n_minimal.service.JobService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobControllerTest {
+
+    @Mock
+    private JobService jobService;
+
+    @InjectMocks
+    private JobController controller;
+
+    @Test
+    void submit_trimmedRequest_returnsAcceptedWithLocation() {
+        // Given
+        JobStatus queued = new JobStatus("42", "data.xlsx", "3", JobState.QUEUED, 0, null, null, null, null);
+        when(jobService.submit("data.xlsx", "3")).thenReturn(queued);
+
+        // When
+        ResponseEntity<JobStatus> response = controller.submit(new JobRequest(" data.xlsx ", " 3 "));
+
+        // Then
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(URI.create("/api/jobs/42"), response.getHeaders().getLocation());
+        assertEquals(queued, response.getBody());
+    }
+
+    @Test
+    void get_existingJob_returnsStatus() {
+        // Given
+        JobStatus running = new JobStatus("42", "data.xlsx", "3", JobState.RUNNING, 8192, 100000L, null, null, null);
+        when(jobService.get("42")).thenReturn(running);
+
+        // When
+        ResponseEntity<JobStatus> response = controller.get("42");
+
+        // Then
+        assertEquals(ResponseEntity.ok(running), response);
+    }
+
+    @Test
+    void cancel_unknownJob_throwsJobNotFoundException() {
+        // Given
+        when(jobService.cancel("missing")).thenThrow(new JobNotFoundException("missing"));
+
+        // When & Then
+        JobNotFoundException thrown = assertThrows(JobNotFoundException.class, () -> controller.cancel("missing"));
+        assertEquals("Job not found: missing", thrown.getMessage());
+    }
+}
@@ -1,18 +1,36 @@
 // src/test/java/com/test_task/n_minimal/controller/NMinimalControllerTest.java
 package com.test_task.n_minimal.controller;
 
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.ApproximateResult;
+import com.test_task.n_minimal.dto.BulkQuery;
+import com.test_task.n_minimal.dto.BulkResult;
+import com.test_task.n_minimal.dto.NthMinimalResult;
 import com.test_task.n_minimal.exception.LinkNotFoundException;
 import com.test_task.n_minimal.exception.LinkProcessingException;
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
 import com.test_task.n_minimal.exception.ValueNNotFoundException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
 import com.test_task.n_minimal.service.NMinimalService;
+import com.test_task.n_minimal.util.ColumnSelector;
+import com.test_task.n_minimal.util.QueryTrace;
+import com.test_task.n_minimal.util.ScanProgress;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,15 +58,154 @@ class NMinimalControllerTest {
         String N = "  5  ";
         Long expectedValue = 42L;
 
-        when(service.getNthMinimal("data/file.xlsx", "5")).thenReturn(expectedValue);
+        when(service.getNthMinimal("data/file.xlsx", "5", ColumnSelector.FIRST, true)).thenReturn(expectedValue);
 
         // When
-        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N);
+        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N, null, null, true, false, null);
 
         // Then
         assertNotNull(response);
-        assertEquals(ResponseEntity.ok(expectedValue), response);
-        verify(service).getNthMinimal(eq("data/file.xlsx"), eq("5"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedValue, response.getBody());
+        verify(service).getNthMinimal(eq("data/file.xlsx"), eq("5"), eq(ColumnSelector.FIRST), eq(true));
+    }
+
+    // === Приближённый режим ===
+
+    @Test
+    void getApproximateNthMinimal_validInput_returnsEstimateWithServerTiming() {
+        // Given
+        ApproximateResult estimate = new ApproximateResult(40L, 5, 1000, 14);
+        ColumnSelector selector = new ColumnSelector("Data", "B");
+        when(service.getApproximateNthMinimal("data.xlsx", "5", selector)).thenReturn(estimate);
+
+        // When
+        ResponseEntity<ApproximateResult> response =
+                controller.getApproximateNthMinimal(" data.xlsx ", " 5 ", "Data", "B", false, null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(estimate, response.getBody());
+        assertNotNull(response.getHeaders().getFirst(NMinimalController.SERVER_TIMING));
+    }
+
+    // === Разбивка по этапам ===
+
+    @Test
+    void getNthMinimal_always_returnsServerTimingWithoutDebugHeader() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "1", ColumnSelector.FIRST, true)).thenReturn(1L);
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal("data.xlsx", "1", null, null, true, false, null);
+
+        // Then
+        assertTrue(response.getHeaders().getFirst(NMinimalController.SERVER_TIMING).contains("total;dur="));
+        assertFalse(response.getHeaders().containsKey(NMinimalController.QUERY_DEBUG));
+        assertNull(QueryTrace.current());
+    }
+
+    @Test
+    void getNthMinimal_debug_returnsStagesAndDetails() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "1", ColumnSelector.FIRST, true)).thenAnswer(invocation -> {
+            QueryTrace trace = QueryTrace.current();
+            trace.addDuration("validate", 1_500_000);
+            trace.setStrategy("fused-heap");
+            trace.addScan(10, 8, 2);
+            return 1L;
+        });
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal("data.xlsx", "1", null, null, true, true, null);
+
+        // Then
+        assertTrue(response.getHeaders().getFirst(NMinimalController.SERVER_TIMING).startsWith("validate;dur=1.500, total;dur="));
+        assertEquals("strategy=fused-heap; rows=10; values=8; skipped=2",
+                response.getHeaders().getFirst(NMinimalController.QUERY_DEBUG));
+    }
+
+    // === Асинхронный запрос ===
+
+    @Test
+    void getNthMinimalAsync_validInput_completesWithResult() {
+        // Given
+        NMinimalController asyncController = new NMinimalController(service, Runnable::run, new NMinimalProperties());
+        when(service.getNthMinimal("data.xlsx", "3", ColumnSelector.FIRST, true)).thenReturn(30L);
+
+        // When
+        ResponseEntity<Long> response = (ResponseEntity<Long>) asyncController
+                .getNthMinimalAsync(" data.xlsx ", " 3 ", null, null, true, false, null).getResult();
+
+        // Then
+        assertEquals(30L, response.getBody());
+        assertTrue(response.getHeaders().containsKey(NMinimalController.SERVER_TIMING));
+    }
+
+    @Test
+    void getNthMinimalAsync_queueFull_throwsServiceOverloadedException() {
+        // Given
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getAsync().setRetryAfter(Duration.ofSeconds(7));
+        Executor full = task -> {
+            throw new RejectedExecutionException();
+        };
+        NMinimalController asyncController = new NMinimalController(service, full, properties);
+
+        // When & Then
+        ServiceOverloadedException thrown = assertThrows(ServiceOverloadedException.class, () ->
+                asyncController.getNthMinimalAsync("data.xlsx", "3", null, null, true, false, null));
+        assertEquals(7, thrown.getRetryAfterSeconds());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void getNthMinimalAsync_notStartedInTime_returnsRequestTimeout() throws InterruptedException {
+        // Given
+        List<Runnable> queued = new ArrayList<>();
+        NMinimalController asyncController = new NMinimalController(service, queued::add, new NMinimalProperties());
+        DeferredResult<ResponseEntity<Long>> response = asyncController.getNthMinimalAsync("data.xlsx", "3", null, null, true, false, 1L);
+
+        // When
+        Thread.sleep(5);
+        queued.forEach(Runnable::run);
+
+        // Then
+        assertInstanceOf(RequestTimeoutException.class, response.getResult());
+        verifyNoInteractions(service);
+    }
+
+    // === Срок запроса ===
+
+    @Test
+    void getNthMinimal_timeoutExceeded_throwsRequestTimeoutException() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "1", ColumnSelector.FIRST, true)).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            ScanProgress.checkCurrent();
+            return 1L;
+        });
+
+        // When & Then
+        RequestTimeoutException thrown = assertThrows(RequestTimeoutException.class, () ->
+                controller.getNthMinimal("data.xlsx", "1", null, null, true, false, 1L));
+        assertEquals("Request timed out after 1 ms", thrown.getMessage());
+        assertNull(ScanProgress.current());
+    }
+
+    @Test
+    void getNthMinimal_nonPositiveTimeout_runsWithoutDeadline() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "1", ColumnSelector.FIRST, true)).thenAnswer(invocation -> {
+            assertNull(ScanProgress.current());
+            return 1L;
+        });
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal("data.xlsx", "1", null, null, true, false, 0L);
+
+        // Then
+        assertEquals(1L, response.getBody());
     }
 
     // === Пограничные случаи: пустые и пробельные строки ===
@@ -59,14 +216,15 @@ class NMinimalControllerTest {
         String fileLink = "   ";
         String N = "   ";
 
-        when(service.getNthMinimal("", "")).thenReturn(100L);
+        when(service.getNthMinimal("", "", ColumnSelector.FIRST, true)).thenReturn(100L);
 
         // When
-        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N);
+        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N, null, null, true, false, null);
 
         // Then
-        assertEquals(ResponseEntity.ok(100L), response);
-        verify(service).getNthMinimal(eq(""), eq(""));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(100L, response.getBody());
+        verify(service).getNthMinimal(eq(""), eq(""), eq(ColumnSelector.FIRST), eq(true));
     }
 
     @Test
@@ -75,14 +233,14 @@ class NMinimalControllerTest {
         String fileLink = "   ";
         String N = "5";
 
-        when(service.getNthMinimal("", "5")).thenThrow(new LinkNotFoundException("Link is empty"));
+        when(service.getNthMinimal("", "5", ColumnSelector.FIRST, true)).thenThrow(new LinkNotFoundException("Link is empty"));
 
         // When & Then
         LinkNotFoundException thrown = assertThrows(LinkNotFoundException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("Link is empty", thrown.getMessage());
-        verify(service).getNthMinimal(eq(""), eq("5"));
+        verify(service).getNthMinimal(eq(""), eq("5"), eq(ColumnSelector.FIRST), eq(true));
     }
 
     @Test
@@ -91,14 +249,14 @@ class NMinimalControllerTest {
         String fileLink = "file.txt";
         String N = "   ";
 
-        when(service.getNthMinimal("file.txt", "")).thenThrow(new ValueNNotFoundException("N is empty"));
+        when(service.getNthMinimal("file.txt", "", ColumnSelector.FIRST, true)).thenThrow(new ValueNNotFoundException("N is empty"));
 
         // When & Then
         ValueNNotFoundException thrown = assertThrows(ValueNNotFoundException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("N is empty", thrown.getMessage());
-        verify(service).getNthMinimal(eq("file.txt"), eq(""));
+        verify(service).getNthMinimal(eq("file.txt"), eq(""), eq(ColumnSelector.FIRST), eq(true));
     }
 
     // === Обработка исключений (через ExceptionHandlingService) ===
@@ -109,12 +267,12 @@ class NMinimalControllerTest {
         String fileLink = "invalid|path";
         String N = "5";
 
-        when(service.getNthMinimal("invalid|path", "5"))
+        when(service.getNthMinimal("invalid|path", "5", ColumnSelector.FIRST, true))
                 .thenThrow(new LinkProcessingException("Invalid character in path"));
 
         // When & Then
         LinkProcessingException thrown = assertThrows(LinkProcessingException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("Invalid character in path", thrown.getMessage());
     }
@@ -125,12 +283,12 @@ class NMinimalControllerTest {
         String fileLink = "file.txt";
         String N = "abc";
 
-        when(service.getNthMinimal("file.txt", "abc"))
+        when(service.getNthMinimal("file.txt", "abc", ColumnSelector.FIRST, true))
                 .thenThrow(new ValueNProcessingException("N must be a number"));
 
         // When & Then
         ValueNProcessingException thrown = assertThrows(ValueNProcessingException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("N must be a number", thrown.getMessage());
     }
@@ -141,12 +299,12 @@ class NMinimalControllerTest {
         String fileLink = "missing.xlsx";
         String N = "3";
 
-        when(service.getNthMinimal("missing.xlsx", "3"))
+        when(service.getNthMinimal("missing.xlsx", "3", ColumnSelector.FIRST, true))
                 .thenThrow(new LinkNotFoundException("File not found"));
 
         // When & Then
         LinkNotFoundException thrown = assertThrows(LinkNotFoundException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("File not found", thrown.getMessage());
     }
@@ -156,12 +314,12 @@ class NMinimalControllerTest {
         // Given
         String fileLink = "data.xlsx";
         String N = "100";
-        when(service.getNthMinimal("data.xlsx", "100"))
+        when(service.getNthMinimal("data.xlsx", "100", ColumnSelector.FIRST, true))
                 .thenThrow(new ValueNNotFoundException("N exceeds number of values"));
 
         // When & Then
         ValueNNotFoundException thrown = assertThrows(ValueNNotFoundException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("N exceeds number of values", thrown.getMessage());
     }
@@ -174,12 +332,12 @@ class NMinimalControllerTest {
         String fileLink = "data.xlsx";
         String N = "0";
 
-        when(service.getNthMinimal("data.xlsx", "0"))
+        when(service.getNthMinimal("data.xlsx", "0", ColumnSelector.FIRST, true))
                 .thenThrow(new ValueNProcessingException("N must be positive"));
 
         // When & Then
         ValueNProcessingException thrown = assertThrows(ValueNProcessingException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("N must be positive", thrown.getMessage());
     }
@@ -190,12 +348,12 @@ class NMinimalControllerTest {
         String fileLink = "data.xlsx";
         String N = " -5 ";
 
-        when(service.getNthMinimal("data.xlsx", "-5"))
+        when(service.getNthMinimal("data.xlsx", "-5", ColumnSelector.FIRST, true))
                 .thenThrow(new ValueNProcessingException("N must be a natural number"));
 
         // When & Then
         ValueNProcessingException thrown = assertThrows(ValueNProcessingException.class, () ->
-                controller.getNthMinimal(fileLink, N)
+                controller.getNthMinimal(fileLink, N, null, null, true, false, null)
         );
         assertEquals("N must be a natural number", thrown.getMessage());
     }
@@ -208,13 +366,104 @@ class NMinimalControllerTest {
         String fileLink = "  path/to/file.xlsx  ";
         String N = "  10  ";
 
-        when(service.getNthMinimal("path/to/file.xlsx", "10")).thenReturn(999L);
+        when(service.getNthMinimal("path/to/file.xlsx", "10", ColumnSelector.FIRST, true)).thenReturn(999L);
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N, null, null, true, false, null);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(999L, response.getBody());
+        verify(service).getNthMinimal(eq("path/to/file.xlsx"), eq("10"), eq(ColumnSelector.FIRST), eq(true));
+    }
+
+    @Test
+    void getNthMinimal_sheetAndColumn_callsServiceWithTrimmedSelector() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "2", new ColumnSelector("Report", "B"), true)).thenReturn(7L);
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal("data.xlsx", "2", " Report ", " B ", true, false, null);
+
+        // Then
+        assertEquals(7L, response.getBody());
+    }
+
+    @Test
+    void getNthMinimal_distinctFalse_callsServiceCountingDuplicates() {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "3", ColumnSelector.FIRST, false)).thenReturn(5L);
+
+        // When
+        ResponseEntity<Long> response = controller.getNthMinimal("data.xlsx", "3", null, null, false, false, null);
+
+        // Then
+        assertEquals(5L, response.getBody());
+        verify(service).getNthMinimal(eq("data.xlsx"), eq("3"), eq(ColumnSelector.FIRST), eq(false));
+    }
+
+    // === Пакетный запрос ===
+
+    @Test
+    void getNthMinimalBatch_valuesWithSpaces_callsServiceWithTrimmedValues() {
+        // Given
+        String fileLink = "  data.xlsx ";
+        List<String> values = List.of(" 1", "5 ", " x ");
+        List<NthMinimalResult> expected = List.of(
+                NthMinimalResult.success("1", 10L),
+                NthMinimalResult.success("5", 50L),
+                NthMinimalResult.failure("x", "N value is not a valid integer"));
+
+        when(service.getNthMinimalBatch("data.xlsx", List.of("1", "5", "x"), ColumnSelector.FIRST))
+                .thenReturn(expected);
+
+        // When
+        ResponseEntity<List<NthMinimalResult>> response = controller.getNthMinimalBatch(fileLink, values, null, null);
+
+        // Then
+        assertEquals(ResponseEntity.ok(expected), response);
+    }
+
+    // === Массовый запрос ===
+
+    @Test
+    void getNthMinimalBulk_queriesWithSpaces_callsServiceWithTrimmedQueries() {
+        // Given
+        List<BulkQuery> queries = List.of(
+                new BulkQuery(" a.xlsx ", " 1 "),
+                new BulkQuery(null, "2"));
+        List<BulkQuery> trimmed = List.of(
+                new BulkQuery("a.xlsx", "1"),
+                new BulkQuery(null, "2"));
+        List<BulkResult> expected = List.of(
+                BulkResult.success(trimmed.get(0), 7L),
+                BulkResult.failure(trimmed.get(1), 404, "File link cannot be null"));
+
+        when(service.getNthMinimalBulk(trimmed)).thenReturn(expected);
+
+        // When
+        ResponseEntity<List<BulkResult>> response = controller.getNthMinimalBulk(queries, null);
+
+        // Then
+        assertEquals(ResponseEntity.ok(expected), response);
+    }
+
+    @Test
+    void getNthMinimalBulk_withTimeout_passesDeadlineAndSelectorToService() {
+        // Given
+        List<BulkQuery> queries = List.of(new BulkQuery("a.xlsx", "1", "Report", "C"));
+        List<BulkResult> expected = List.of(BulkResult.success(queries.get(0), 7L));
+
+        when(service.getNthMinimalBulk(queries)).thenAnswer(invocation -> {
+            assertEquals(1000L, ScanProgress.current().getTimeoutMillis());
+            return expected;
+        });
 
         // When
-        ResponseEntity<Long> response = controller.getNthMinimal(fileLink, N);
+        ResponseEntity<List<BulkResult>> response = controller.getNthMinimalBulk(queries, 1000L);
 
         // Then
-        assertEquals(ResponseEntity.ok(999L), response);
-        verify(service).getNthMinimal(eq("path/to/file.xlsx"), eq("10"));
+        assertEquals(ResponseEntity.ok(expected), response);
+        assertNull(ScanProgress.current());
     }
 }
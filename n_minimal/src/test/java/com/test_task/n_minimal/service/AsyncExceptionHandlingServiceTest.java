@@ -0,0 +1,48 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncExceptionHandlingServiceTest {
+
+    private final AsyncExceptionHandlingService handler = new AsyncExceptionHandlingService();
+
+    @Test
+    void handleOverloaded_returnsServiceUnavailableWithRetryAfter() {
+        // When
+        ResponseEntity<String> response = handler.handleOverloaded(new ServiceOverloadedException("busy", 5));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("busy", response.getBody());
+    }
+
+    @Test
+    void handleTimeout_returnsServiceUnavailable() {
+        // When
+        ResponseEntity<String> response = handler.handleTimeout(new TimeoutException());
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(AsyncExceptionHandlingService.REQUEST_TIMED_OUT, response.getBody());
+    }
+
+    @Test
+    void handleRequestTimeout_returnsServiceUnavailableWithMessage() {
+        // When
+        ResponseEntity<String> response = handler.handleRequestTimeout(new RequestTimeoutException(250));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Request timed out after 250 ms", response.getBody());
+    }
+}
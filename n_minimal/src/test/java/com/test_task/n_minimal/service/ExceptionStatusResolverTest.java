@@ -0,0 +1,22 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.exception.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExceptionStatusResolverTest {
+
+    @Test
+    void resolve_matchesHandlerStatuses() {
+        assertEquals(HttpStatus.BAD_REQUEST, ExceptionStatusResolver.resolve(new LinkProcessingException("e")));
+        assertEquals(HttpStatus.BAD_REQUEST, ExceptionStatusResolver.resolve(new ValueNProcessingException("e")));
+        assertEquals(HttpStatus.BAD_REQUEST, ExceptionStatusResolver.resolve(new FileProcessingException("e")));
+        assertEquals(HttpStatus.NOT_FOUND, ExceptionStatusResolver.resolve(new LinkNotFoundException()));
+        assertEquals(HttpStatus.NOT_FOUND, ExceptionStatusResolver.resolve(new ValueNNotFoundException()));
+        assertEquals(HttpStatus.NOT_FOUND, ExceptionStatusResolver.resolve(new JobNotFoundException("id")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ExceptionStatusResolver.resolve(new RequestTimeoutException(1)));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ExceptionStatusResolver.resolve(new IllegalStateException()));
+    }
+}
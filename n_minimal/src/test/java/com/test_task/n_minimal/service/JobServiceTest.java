@@ -0,0 +1,189 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.JobState;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.exception.JobNotFoundException;
+import com.test_task.n_minimal.exception.ServiceOverloadedException;
+import com.test_task.n_minimal.exception.ValueNProcessingException;
+import com.test_task.n_minimal.util.ScanProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceTest {
+
+    @Mock
+    private NMinimalService service;
+
+    private final NMinimalProperties properties = new NMinimalProperties();
+
+    private ThreadPoolExecutor executor;
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        jobService = new JobService(service, executor, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Задача должна выполниться в фоне и вернуть значение")
+    void shouldRunJobAndReturnValue() throws InterruptedException {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "2")).thenReturn(20L);
+
+        // When
+        JobStatus submitted = jobService.submit("data.xlsx", "2");
+        JobStatus finished = awaitFinished(submitted.id());
+
+        // Then
+        assertEquals(JobState.SUCCEEDED, finished.state());
+        assertEquals(20L, finished.value());
+        assertNull(finished.error());
+    }
+
+    @Test
+    @DisplayName("Ошибка запроса должна сохраняться в задаче со статусом ответа")
+    void shouldStoreFailureWithStatus() throws InterruptedException {
+        // Given
+        when(service.getNthMinimal("data.xlsx", "0"))
+                .thenThrow(new ValueNProcessingException("N value must be positive, starting from 1"));
+
+        // When
+        JobStatus finished = awaitFinished(jobService.submit("data.xlsx", "0").id());
+
+        // Then
+        assertEquals(JobState.FAILED, finished.state());
+        assertEquals(400, finished.status());
+        assertEquals("N value must be positive, starting from 1", finished.error());
+    }
+
+    @Test
+    @DisplayName("Отмена выполняющейся задачи должна прерывать разбор в точке проверки")
+    void shouldCancelRunningJobAtCheckpoint() throws InterruptedException {
+        // Given
+        CountDownLatch running = new CountDownLatch(1);
+        when(service.getNthMinimal("big.xlsx", "1")).thenAnswer(invocation -> {
+            ScanProgress progress = ScanProgress.current();
+            for (long rows = 1; ; rows++) {
+                progress.checkpoint(rows);
+                running.countDown();
+                Thread.sleep(1);
+            }
+        });
+        String id = jobService.submit("big.xlsx", "1").id();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // When
+        JobStatus cancelled = jobService.cancel(id);
+
+        // Then
+        assertEquals(JobState.CANCELLED, cancelled.state());
+        assertTrue(cancelled.rowsProcessed() > 0);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Отменённая в очереди задача не должна запускаться")
+    void shouldNotStartJobCancelledInQueue() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        when(service.getNthMinimal("first.xlsx", "1")).thenAnswer(invocation -> {
+            release.await();
+            return 1L;
+        });
+        jobService.submit("first.xlsx", "1");
+        String queued = jobService.submit("second.xlsx", "1").id();
+
+        // When
+        JobStatus cancelled = jobService.cancel(queued);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(JobState.CANCELLED, cancelled.state());
+        assertEquals(JobState.CANCELLED, jobService.get(queued).state());
+        verify(service, never()).getNthMinimal("second.xlsx", "1");
+    }
+
+    @Test
+    @DisplayName("При заполненной очереди задача должна отклоняться с 503 и Retry-After из настроек задач")
+    void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        // Given
+        properties.getJobs().setRetryAfter(Duration.ofSeconds(7));
+        properties.getAsync().setRetryAfter(Duration.ofSeconds(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(service.getNthMinimal(anyString(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return 1L;
+        });
+        jobService.submit("first.xlsx", "1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.submit("second.xlsx", "1");
+
+        // When & Then
+        ServiceOverloadedException thrown = assertThrows(ServiceOverloadedException.class,
+                () -> jobService.submit("third.xlsx", "1"));
+        assertEquals(JobService.TOO_MANY_JOBS, thrown.getMessage());
+        assertEquals(7, thrown.getRetryAfterSeconds());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Результат должен удаляться по истечении TTL")
+    void shouldEvictFinishedJobAfterTtl() throws InterruptedException {
+        // Given
+        properties.getJobs().setTtl(Duration.ofMillis(50));
+        when(service.getNthMinimal("data.xlsx", "1")).thenReturn(1L);
+        String id = awaitFinished(jobService.submit("data.xlsx", "1").id()).id();
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertThrows(JobNotFoundException.class, () -> jobService.get(id));
+    }
+
+    @Test
+    @DisplayName("Неизвестная задача должна давать JobNotFoundException")
+    void shouldThrowForUnknownJob() {
+        assertThrows(JobNotFoundException.class, () -> jobService.get("missing"));
+        assertThrows(JobNotFoundException.class, () -> jobService.cancel("missing"));
+    }
+
+    private JobStatus awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            JobStatus status = jobService.get(id);
+            if (status.state() != JobState.QUEUED && status.state() != JobState.RUNNING) {
+                return status;
+            }
+            Thread.sleep(5);
+        }
+        return fail("Job did not finish: " + id);
+    }
+}
@@ -1,23 +1,54 @@
 package com.test_task.n_minimal.service;
 
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.dto.ApproximateResult;
+import com.test_task.n_minimal.dto.BulkQuery;
+import com.test_task.n_minimal.dto.BulkResult;
+import com.test_task.n_minimal.dto.JobState;
+import com.test_task.n_minimal.dto.JobStatus;
+import com.test_task.n_minimal.dto.NthMinimalResult;
+import com.test_task.n_minimal.dto.RangeResult;
 import com.test_task.n_minimal.exception.LinkNotFoundException;
 import com.test_task.n_minimal.exception.LinkProcessingException;
 import com.test_task.n_minimal.exception.ValueNNotFoundException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
+import com.test_task.n_minimal.util.ColumnSelector;
+import com.test_task.n_minimal.util.KllSketch;
+import com.test_task.n_minimal.util.LongColumn;
+import com.test_task.n_minimal.util.NthMinimalHeap;
+import com.test_task.n_minimal.util.ScanProgress;
+import com.test_task.n_minimal.util.SortedColumn;
 import com.test_task.n_minimal.util.Sorter;
 import com.test_task.n_minimal.util.Validator;
 import com.test_task.n_minimal.util.XlsxToListConverter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +63,29 @@ class NMinimalServiceImplTest {
     @Mock
     private Sorter sorter;
 
+    @Mock
+    private SortedColumnCache cache;
+
+    @Mock
+    private SortedColumnIndex index;
+
+    @Mock
+    private QuantileSketchCache sketches;
+
+    @Spy
+    private NMinimalProperties properties = new NMinimalProperties();
+
+    @Mock
+    private Executor bulkExecutor;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Spy
+    private QueryMetrics metrics = new QueryMetrics(registry);
+
+    @TempDir
+    Path tempDir;
+
     @InjectMocks
     private NMinimalServiceImpl service;
 
@@ -43,24 +97,20 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "2";
-        List<Long> unsorted = List.of(5L, 2L, 8L, 1L, 9L);
-        List<Long> sorted = List.of(1L, 2L, 5L, 8L, 9L);
 
         // Моки
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(unsorted);
-        doNothing().when(validator).validateNWithListSize(unsorted, 2);
-        when(sorter.sort(unsorted)).thenReturn(sorted);
+        stubRead(fileLink, 5L, 2L, 8L, 1L, 9L);
 
         // When
         Long result = service.getNthMinimal(fileLink, N);
 
         // Then
-        assertEquals(2L, result); // sorted.get(2 - 1) = sorted.get(1) = 2L
+        assertEquals(2L, result);
         verify(validator).validateInput(fileLink, N);
-        verify(converter).convert(fileLink);
-        verify(validator).validateNWithListSize(unsorted, 2);
-        verify(sorter).sort(unsorted);
+        verify(converter).read(eq(fileLink), eq(ColumnSelector.FIRST), any(NthMinimalHeap.class));
+        verify(validator).validateNWithValuesCount(5, 2);
+        verifyNoInteractions(sorter);
     }
 
     @Test
@@ -69,13 +119,9 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "1";
-        List<Long> unsorted = List.of(3L, 1L, 4L, 2L);
-        List<Long> sorted = List.of(1L, 2L, 3L, 4L);
 
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(unsorted);
-        doNothing().when(validator).validateNWithListSize(unsorted, 1);
-        when(sorter.sort(unsorted)).thenReturn(sorted);
+        stubRead(fileLink, 3L, 1L, 4L, 2L);
 
         // When
         Long result = service.getNthMinimal(fileLink, N);
@@ -90,13 +136,9 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "4";
-        List<Long> unsorted = List.of(3L, 1L, 4L, 2L);
-        List<Long> sorted = List.of(1L, 2L, 3L, 4L);
 
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(unsorted);
-        doNothing().when(validator).validateNWithListSize(unsorted, 4);
-        when(sorter.sort(unsorted)).thenReturn(sorted);
+        stubRead(fileLink, 3L, 1L, 4L, 2L);
 
         // When
         Long result = service.getNthMinimal(fileLink, N);
@@ -111,19 +153,696 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "2";
-        List<Long> unsorted = List.of(3L, 1L, 4L, 1L, 5L);
-        List<Long> sorted = List.of(1L, 1L, 3L, 4L, 5L);
 
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(unsorted);
-        doNothing().when(validator).validateNWithListSize(unsorted, 2);
-        when(sorter.sort(unsorted)).thenReturn(sorted);
+        stubRead(fileLink, 3L, 1L, 4L, 1L, 5L);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(3L, result); // дубликаты не учитываются: 1, 3, 4, 5
+    }
+
+    @Test
+    @DisplayName("Должен учитывать дубликаты при distinct = false и не обращаться к кешу")
+    void shouldCountDuplicatesWhenNotDistinct() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        String N = "2";
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        stubRead(fileLink, 3L, 1L, 4L, 1L, 5L);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N, ColumnSelector.FIRST, false);
+
+        // Then
+        assertEquals(1L, result); // дубликаты учитываются: 1, 1, 3, 4, 5
+        verify(validator).validateNWithValuesCount(5, 2);
+        verifyNoInteractions(cache, index, sorter);
+    }
+
+    @Test
+    @DisplayName("Должен выбирать introselect-ом без удаления дубликатов при большом N и distinct = false")
+    void shouldSelectWithDuplicatesWhenNIsLargeAndNotDistinct() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        String N = "2000";
+        LongColumn unsorted = LongColumn.of(LongStream.rangeClosed(1, 3000).map(i -> i / 2).toArray());
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        doNothing().when(validator).validateNWithColumnSize(unsorted, 2000);
+        when(sorter.select(unsorted, 2000, false)).thenReturn(1000L);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N, ColumnSelector.FIRST, false);
+
+        // Then
+        assertEquals(1000L, result);
+        verifyNoInteractions(cache, index);
+    }
+
+    @Test
+    @DisplayName("Должен собирать столбец и выбирать introselect-ом при большом N")
+    void shouldSelectFromColumnWhenNIsLarge() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        String N = "2000";
+        LongColumn unsorted = LongColumn.of(LongStream.rangeClosed(1, 3000).toArray());
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        doNothing().when(validator).validateNWithColumnSize(unsorted, 2000);
+        when(sorter.select(unsorted, 2000, true)).thenReturn(2000L);
 
         // When
         Long result = service.getNthMinimal(fileLink, N);
 
         // Then
-        assertEquals(1L, result); // второй элемент — тоже 1
+        assertEquals(2000L, result);
+        verify(sorter).select(unsorted, 2000, true);
+        verify(converter, never()).read(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать ValueNProcessingException, если уникальных значений меньше N")
+    void shouldThrowWhenNotEnoughDistinctValues() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        String N = "3";
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        stubRead(fileLink, 7L, 7L, 7L, 8L);
+
+        // When & Then
+        ValueNProcessingException exception = assertThrows(
+                ValueNProcessingException.class,
+                () -> service.getNthMinimal(fileLink, N)
+        );
+        assertEquals("N exceeds the number of distinct values in first column", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен отдавать значение из кеша без чтения файла")
+    void shouldReturnValueFromCacheOnHit() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("cached.xlsx")).toString();
+        String N = "3";
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.get(FileKey.of(fileLink))).thenReturn(new SortedColumn(new long[]{1L, 5L, 9L, 12L}));
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(9L, result);
+        verifyNoInteractions(converter, sorter);
+    }
+
+    @Test
+    @DisplayName("При первом промахе должен читать файл потоково и запоминать промах, не сортируя столбец")
+    void shouldStreamOnFirstMiss() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("first.xlsx")).toString();
+        String N = "2";
+        FileKey key = FileKey.of(fileLink);
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(key, false)).thenReturn(false);
+        stubRead(fileLink, 4L, 2L, 8L);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(4L, result);
+        verify(cache).recordMiss(key, 3);
+        verify(cache, never()).put(any(), any());
+        verify(converter, never()).convertToColumn(any(), any());
+        verifyNoInteractions(sorter);
+    }
+
+    @Test
+    @DisplayName("Запрос первого листа по номеру должен попадать в кеш запроса без листа")
+    void shouldShareCacheKeyBetweenSheetSpellings() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("first-sheet.xlsx")).toString();
+        ColumnSelector byNumber = new ColumnSelector("1", null);
+
+        doNothing().when(validator).validateInput(fileLink, "2");
+        when(converter.resolveSheet(fileLink, byNumber)).thenReturn(ColumnSelector.FIRST);
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.get(FileKey.of(fileLink))).thenReturn(new SortedColumn(new long[]{1L, 5L, 9L}));
+
+        // When
+        Long result = service.getNthMinimal(fileLink, "2", byNumber);
+
+        // Then
+        assertEquals(5L, result);
+        verify(converter, never()).read(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен сортировать столбец и класть его в кеш при повторном промахе")
+    void shouldSortAndCacheColumnOnMiss() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("fresh.xlsx")).toString();
+        String N = "2";
+        LongColumn unsorted = LongColumn.of(4L, 2L, 8L);
+        SortedColumn sorted = new SortedColumn(new long[]{2L, 4L, 8L});
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(FileKey.of(fileLink), false)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(4L, result);
+        verify(cache).put(FileKey.of(fileLink), sorted);
+    }
+
+    @Test
+    @DisplayName("Должен читать выбранные лист и столбец и кешировать их отдельно от первого столбца")
+    void shouldCacheSelectedColumnUnderOwnKey() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("sheets.xlsx")).toString();
+        ColumnSelector selector = new ColumnSelector("Report", "C");
+        LongColumn unsorted = LongColumn.of(30L, 10L, 20L);
+        SortedColumn sorted = new SortedColumn(new long[]{10L, 20L, 30L});
+
+        doNothing().when(validator).validateInput(fileLink, "1");
+        when(converter.resolveSheet(fileLink, selector)).thenReturn(selector);
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(FileKey.of(fileLink, selector), false)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, selector)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, "1", selector);
+
+        // Then
+        assertEquals(10L, result);
+        FileKey key = FileKey.of(fileLink, selector);
+        assertEquals("Report", key.sheet());
+        assertEquals(2, key.column());
+        assertNotEquals(FileKey.of(fileLink), key);
+        verify(cache).put(key, sorted);
+    }
+
+    @Test
+    @DisplayName("Должен записывать время этапов и объём прочитанных значений")
+    void shouldRecordStageMetrics() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("metered.xlsx")).toString();
+        LongColumn unsorted = LongColumn.of(7L, 3L, 5L, 3L);
+
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(FileKey.of(fileLink), false)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(new SortedColumn(new long[]{3L, 5L, 7L}));
+
+        // When
+        service.getNthMinimal(fileLink, "2");
+
+        // Then
+        for (String stage : List.of("validate", "cache", "read", "sort", "select")) {
+            assertEquals(1, registry.get("n_minimal.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(0, registry.get("n_minimal.stage").tag("stage", "index").timer().count());
+        assertEquals(4.0, registry.get("n_minimal.values.read").summary().totalAmount());
+        assertEquals(3.0, registry.get("n_minimal.values.kept").summary().totalAmount());
+        assertEquals(1, registry.get("n_minimal.file.bytes").summary().count());
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы к одному файлу должны разбирать его один раз")
+    void shouldParseFileOnceForConcurrentRequests() throws Exception {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("hot.xlsx")).toString();
+        FileKey key = FileKey.of(fileLink);
+        LongColumn unsorted = LongColumn.of(30L, 10L, 20L);
+        SortedColumn sorted = new SortedColumn(new long[]{10L, 20L, 30L});
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(key, false)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenAnswer(invocation -> {
+            parsing.countDown();
+            release.await();
+            return unsorted;
+        });
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        AtomicReference<Long> first = new AtomicReference<>();
+        AtomicReference<Long> second = new AtomicReference<>();
+        Thread leader = new Thread(() -> first.set(service.getNthMinimal(fileLink, "1")));
+        Thread follower = new Thread(() -> second.set(service.getNthMinimal(fileLink, "3")));
+
+        // When
+        leader.start();
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+        follower.start();
+        // Второй запрос ждёт результат первого, а не разбирает файл сам
+        while (follower.getState() != Thread.State.WAITING && follower.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        leader.join(5000);
+        follower.join(5000);
+
+        // Then
+        assertEquals(10L, first.get());
+        assertEquals(30L, second.get());
+        verify(converter, times(1)).convertToColumn(fileLink, ColumnSelector.FIRST);
+        verify(cache, times(1)).put(key, sorted);
+    }
+
+    @Test
+    @DisplayName("После ошибки разбора следующий запрос должен разбирать файл заново")
+    void shouldRetryParsingAfterFailure() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("broken.xlsx")).toString();
+        LongColumn unsorted = LongColumn.of(1L);
+
+        when(cache.isEnabled()).thenReturn(true);
+        when(cache.admit(FileKey.of(fileLink), false)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST))
+                .thenThrow(new LinkProcessingException("Error reading Excel file: broken"))
+                .thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(new SortedColumn(new long[]{1L}));
+
+        // When & Then
+        assertThrows(LinkProcessingException.class, () -> service.getNthMinimal(fileLink, "1"));
+        assertEquals(1L, service.getNthMinimal(fileLink, "1"));
+        verify(converter, times(2)).convertToColumn(fileLink, ColumnSelector.FIRST);
+    }
+
+    @Test
+    @DisplayName("Одновременные одинаковые запросы без кеша должны читать файл один раз")
+    void shouldReadFileOnceForConcurrentHeapRequests() throws Exception {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("uncached.xlsx")).toString();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(converter.read(eq(fileLink), eq(ColumnSelector.FIRST), any())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            LongConsumer sink = invocation.getArgument(2);
+            LongStream.of(5L, 3L, 5L, 9L).forEach(sink);
+            return 4L;
+        });
+
+        // When
+        List<Long> results = runWhileReading(reading, release,
+                () -> service.getNthMinimal(fileLink, "2", ColumnSelector.FIRST, false),
+                () -> service.getNthMinimal(fileLink, "2", ColumnSelector.FIRST, false));
+
+        // Then
+        assertEquals(List.of(5L, 5L), results);
+        verify(converter, times(1)).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
+    }
+
+    @Test
+    @DisplayName("Отменённая задача, ждущая чужое чтение файла, должна завершаться, не дожидаясь его")
+    void shouldCancelJobWaitingForAnotherRead() throws Exception {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("shared.xlsx")).toString();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(converter.read(eq(fileLink), eq(ColumnSelector.FIRST), any())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            invocation.<LongConsumer>getArgument(2).accept(1L);
+            return 1L;
+        });
+        ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+        JobService jobs = new JobService(service, jobExecutor, properties);
+        Thread leader = new Thread(() -> service.getNthMinimal(fileLink, "1"));
+        leader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        String id = jobs.submit(fileLink, "1").id();
+        while (jobs.get(id).state() == JobState.QUEUED) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        JobStatus cancelled = jobs.cancel(id);
+        jobExecutor.shutdown();
+
+        // Then: поток задачи освобождается, пока первое чтение ещё идёт
+        assertTrue(jobExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(leader.isAlive());
+        assertEquals(JobState.CANCELLED, cancelled.state());
+        assertEquals(JobState.CANCELLED, jobs.get(id).state());
+        release.countDown();
+        leader.join(5000);
+        verify(converter, times(1)).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
+    }
+
+    @Test
+    @DisplayName("Должен брать столбец из индекса на диске и не разбирать файл")
+    void shouldLoadColumnFromIndex() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("indexed.xlsx")).toString();
+        String N = "1";
+        FileKey key = FileKey.of(fileLink);
+        SortedColumn sorted = new SortedColumn(new long[]{-7L, 3L});
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(index.isEnabled()).thenReturn(true);
+        when(index.load(key)).thenReturn(sorted);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(-7L, result);
+        verify(cache).put(key, sorted);
+        verify(index, never()).store(any(), any());
+        verifyNoInteractions(converter, sorter);
+    }
+
+    @Test
+    @DisplayName("Должен записывать индекс после разбора, если его ещё нет")
+    void shouldStoreIndexAfterParsing() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("not_indexed.xlsx")).toString();
+        String N = "1";
+        FileKey key = FileKey.of(fileLink);
+        LongColumn unsorted = LongColumn.of(3L, -7L);
+        SortedColumn sorted = new SortedColumn(new long[]{-7L, 3L});
+
+        doNothing().when(validator).validateInput(fileLink, N);
+        when(index.isEnabled()).thenReturn(true);
+        when(cache.admit(key, true)).thenReturn(true);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        // When
+        Long result = service.getNthMinimal(fileLink, N);
+
+        // Then
+        assertEquals(-7L, result);
+        verify(index).store(key, sorted);
+    }
+
+    // === Приближённый режим ===
+
+    @Test
+    @DisplayName("Должен заполнять скетч при чтении файла, кешировать его и учитывать повторы в ранге")
+    void shouldEstimateNthMinimalWithSketch() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("approximate.xlsx")).toString();
+        stubRead(fileLink, 5L, 2L, 8L, 2L, 9L);
+
+        // When
+        ApproximateResult result = service.getApproximateNthMinimal(fileLink, "3", ColumnSelector.FIRST);
+
+        // Then
+        assertEquals(new ApproximateResult(5L, 3, 5, 0), result);
+        verify(validator).validateNWithValuesCount(5, 3);
+        verify(sketches).put(eq(FileKey.of(fileLink)), any(KllSketch.class));
+        verifyNoInteractions(sorter, cache);
+    }
+
+    @Test
+    @DisplayName("Одновременные приближённые запросы должны заполнять скетч за одно чтение файла")
+    void shouldFillSketchOnceForConcurrentRequests() throws Exception {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("sketched.xlsx")).toString();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(converter.read(eq(fileLink), eq(ColumnSelector.FIRST), any())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            LongConsumer sink = invocation.getArgument(2);
+            LongStream.rangeClosed(1, 10).forEach(sink);
+            return 10L;
+        });
+
+        // When
+        List<ApproximateResult> results = runWhileReading(reading, release,
+                () -> service.getApproximateNthMinimal(fileLink, "2", ColumnSelector.FIRST),
+                () -> service.getApproximateNthMinimal(fileLink, "7", ColumnSelector.FIRST));
+
+        // Then
+        assertEquals(2L, results.get(0).value());
+        assertEquals(7L, results.get(1).value());
+        verify(converter, times(1)).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
+        verify(sketches, times(1)).put(eq(FileKey.of(fileLink)), any(KllSketch.class));
+    }
+
+    @Test
+    @DisplayName("Должен брать скетч из кеша и не читать файл повторно")
+    void shouldUseCachedSketch() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("cached-sketch.xlsx")).toString();
+        KllSketch sketch = new KllSketch();
+        LongStream.rangeClosed(1, 10).forEach(sketch);
+        when(sketches.get(FileKey.of(fileLink))).thenReturn(sketch);
+
+        // When
+        ApproximateResult result = service.getApproximateNthMinimal(fileLink, "4", ColumnSelector.FIRST);
+
+        // Then
+        assertEquals(4L, result.value());
+        assertEquals(10, result.count());
+        verifyNoInteractions(converter);
+        verify(sketches, never()).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать ValueNProcessingException, если N больше количества чисел")
+    void shouldThrowWhenApproximateNExceedsCount() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("short.xlsx")).toString();
+        stubRead(fileLink, 1L, 2L);
+        doThrow(new ValueNProcessingException("N exceeds the number of values in first column"))
+                .when(validator).validateNWithValuesCount(2, 3);
+
+        // When & Then
+        assertThrows(ValueNProcessingException.class,
+                () -> service.getApproximateNthMinimal(fileLink, "3", ColumnSelector.FIRST));
+    }
+
+    // === Запросы по рангу и значению ===
+
+    @Test
+    @DisplayName("Запросы по рангу и значению должны разбирать файл один раз и дальше брать столбец из кеша")
+    void shouldAnswerRankQueriesFromOneSortedColumn() throws IOException {
+        // Given
+        String fileLink = Files.createFile(tempDir.resolve("ranks.xlsx")).toString();
+        FileKey key = FileKey.of(fileLink);
+        LongColumn unsorted = LongColumn.of(30L, 10L, 20L, 10L, 50L, 40L);
+        SortedColumn sorted = new SortedColumn(new long[]{10L, 20L, 30L, 40L, 50L});
+
+        when(validator.validateN("2")).thenReturn(2);
+        when(validator.validatePercentile("50")).thenReturn(50.0);
+        when(validator.validateValue("25", "X")).thenReturn(25L);
+        when(validator.validateValue("15", "From")).thenReturn(15L);
+        when(validator.validateValue("45", "To")).thenReturn(45L);
+        when(cache.get(key)).thenReturn(null, sorted);
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        // When
+        Long nthMaximal = service.getNthMaximal(fileLink, "2", ColumnSelector.FIRST);
+        Long median = service.getPercentile(fileLink, "50", ColumnSelector.FIRST);
+        Integer atMost = service.countAtMost(fileLink, "25", ColumnSelector.FIRST);
+        RangeResult range = service.getRange(fileLink, "15", "45", 2, ColumnSelector.FIRST);
+
+        // Then
+        assertEquals(40L, nthMaximal);
+        assertEquals(30L, median);
+        assertEquals(2, atMost);
+        assertEquals(new RangeResult(15L, 45L, 3, List.of(20L, 30L)), range);
+        verify(converter, times(1)).convertToColumn(fileLink, ColumnSelector.FIRST);
+        verify(validator, times(4)).validateLink(fileLink);
+        verify(validator).validateRange(15L, 45L);
+        verify(validator).validateLimit(2);
+    }
+
+    @Test
+    @DisplayName("Не должен разбирать файл, если параметр запроса не валиден")
+    void shouldNotParseWhenRangeIsInvalid() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        when(validator.validateValue("9", "From")).thenReturn(9L);
+        when(validator.validateValue("1", "To")).thenReturn(1L);
+        doThrow(new ValueNProcessingException("Range start must not exceed range end"))
+                .when(validator).validateRange(9L, 1L);
+
+        // When & Then
+        assertThrows(ValueNProcessingException.class,
+                () -> service.getRange(fileLink, "9", "1", 10, ColumnSelector.FIRST));
+        verifyNoInteractions(converter, cache);
+    }
+
+    // === Пакетный запрос ===
+
+    @Test
+    @DisplayName("Пакетный запрос должен разбирать файл один раз и возвращать ошибки по элементам")
+    void shouldAnswerBatchWithSingleParseAndPerItemErrors() {
+        // Given
+        String fileLink = "/data/test.xlsx";
+        LongColumn unsorted = LongColumn.of(30L, 10L, 20L);
+        SortedColumn sorted = new SortedColumn(new long[]{10L, 20L, 30L});
+
+        doNothing().when(validator).validateLink(fileLink);
+        when(validator.validateN("1")).thenReturn(1);
+        when(validator.validateN("3")).thenReturn(3);
+        when(validator.validateN("5")).thenReturn(5);
+        when(validator.validateN("x")).thenThrow(new ValueNProcessingException("N value is not a valid integer"));
+        when(converter.convertToColumn(fileLink, ColumnSelector.FIRST)).thenReturn(unsorted);
+        when(sorter.sortDistinct(unsorted)).thenReturn(sorted);
+
+        // When
+        List<NthMinimalResult> results = service.getNthMinimalBatch(fileLink, List.of("3", "x", "1", "5"), ColumnSelector.FIRST);
+
+        // Then
+        assertEquals(List.of(
+                NthMinimalResult.success("3", 30L),
+                NthMinimalResult.failure("x", "N value is not a valid integer"),
+                NthMinimalResult.success("1", 10L),
+                NthMinimalResult.failure("5", "N exceeds the number of distinct values in first column")
+        ), results);
+        verify(converter, times(1)).convertToColumn(fileLink, ColumnSelector.FIRST);
+        verify(sorter, times(1)).sortDistinct(unsorted);
+    }
+
+    @Test
+    @DisplayName("Пакетный запрос должен прерываться целиком при невалидной ссылке")
+    void shouldFailWholeBatchOnInvalidLink() {
+        // Given
+        String fileLink = "<invalid>.xlsx";
+        doThrow(new LinkProcessingException("Invalid characters in file path"))
+                .when(validator).validateLink(fileLink);
+
+        // When & Then
+        assertThrows(LinkProcessingException.class, () -> service.getNthMinimalBatch(fileLink, List.of("1"), ColumnSelector.FIRST));
+        verifyNoInteractions(converter, sorter);
+    }
+
+    // === Массовый запрос ===
+
+    @Test
+    @DisplayName("Массовый запрос должен разбирать каждый файл один раз и сохранять порядок пар")
+    void shouldAnswerBulkInInputOrderParsingEachFileOnce() {
+        // Given
+        runBulkTasksInline();
+        LongColumn first = LongColumn.of(3L, 1L, 2L);
+        LongColumn second = LongColumn.of(100L, 200L);
+        when(converter.convertToColumn("/data/first.xlsx", ColumnSelector.FIRST)).thenReturn(first);
+        when(converter.convertToColumn("/data/second.xlsx", ColumnSelector.FIRST)).thenReturn(second);
+        when(sorter.sortDistinct(first)).thenReturn(new SortedColumn(new long[]{1L, 2L, 3L}));
+        when(sorter.sortDistinct(second)).thenReturn(new SortedColumn(new long[]{100L, 200L}));
+        when(validator.validateN(anyString())).thenAnswer(invocation -> Integer.parseInt(invocation.getArgument(0)));
+
+        List<BulkQuery> queries = List.of(
+                new BulkQuery("/data/first.xlsx", "2"),
+                new BulkQuery("/data/second.xlsx", "1"),
+                new BulkQuery("/data/first.xlsx", "3"),
+                new BulkQuery("/data/second.xlsx", "5"));
+
+        // When
+        List<BulkResult> results = service.getNthMinimalBulk(queries);
+
+        // Then
+        assertEquals(List.of(
+                BulkResult.success(queries.get(0), 2L),
+                BulkResult.success(queries.get(1), 100L),
+                BulkResult.success(queries.get(2), 3L),
+                BulkResult.failure(queries.get(3), 400, "N exceeds the number of distinct values in first column")
+        ), results);
+        verify(converter, times(1)).convertToColumn("/data/first.xlsx", ColumnSelector.FIRST);
+        verify(converter, times(1)).convertToColumn("/data/second.xlsx", ColumnSelector.FIRST);
+    }
+
+    @Test
+    @DisplayName("Ошибка файла в массовом запросе должна попадать во все его пары, не затрагивая другие")
+    void shouldReportFileErrorForAllItsPairs() {
+        // Given
+        runBulkTasksInline();
+        doThrow(new LinkNotFoundException("File link cannot be null")).when(validator).validateLink(null);
+        LongColumn column = LongColumn.of(5L);
+        when(converter.convertToColumn("/data/ok.xlsx", ColumnSelector.FIRST)).thenReturn(column);
+        when(sorter.sortDistinct(column)).thenReturn(new SortedColumn(new long[]{5L}));
+        when(validator.validateN("1")).thenReturn(1);
+
+        List<BulkQuery> queries = List.of(
+                new BulkQuery(null, "1"),
+                new BulkQuery("/data/ok.xlsx", "1"),
+                new BulkQuery(null, "2"));
+
+        // When
+        List<BulkResult> results = service.getNthMinimalBulk(queries);
+
+        // Then
+        assertEquals(List.of(
+                BulkResult.failure(queries.get(0), 404, "File link cannot be null"),
+                BulkResult.success(queries.get(1), 5L),
+                BulkResult.failure(queries.get(2), 404, "File link cannot be null")
+        ), results);
+    }
+
+    @Test
+    @DisplayName("Массовый запрос должен разбирать разные столбцы одного файла отдельно")
+    void shouldAnswerBulkPerSelectedColumn() {
+        // Given
+        runBulkTasksInline();
+        ColumnSelector selector = new ColumnSelector("Report", "C");
+        LongColumn first = LongColumn.of(3L, 1L);
+        LongColumn selected = LongColumn.of(30L, 10L);
+        when(converter.convertToColumn("/data/sheets.xlsx", ColumnSelector.FIRST)).thenReturn(first);
+        when(converter.resolveSheet("/data/sheets.xlsx", selector)).thenReturn(selector);
+        when(converter.convertToColumn("/data/sheets.xlsx", selector)).thenReturn(selected);
+        when(sorter.sortDistinct(first)).thenReturn(new SortedColumn(new long[]{1L, 3L}));
+        when(sorter.sortDistinct(selected)).thenReturn(new SortedColumn(new long[]{10L, 30L}));
+        when(validator.validateN("1")).thenReturn(1);
+
+        List<BulkQuery> queries = List.of(
+                new BulkQuery("/data/sheets.xlsx", "1"),
+                new BulkQuery("/data/sheets.xlsx", "1", "Report", "C"));
+
+        // When
+        List<BulkResult> results = service.getNthMinimalBulk(queries);
+
+        // Then
+        assertEquals(List.of(
+                BulkResult.success(queries.get(0), 1L),
+                BulkResult.success(queries.get(1), 10L)
+        ), results);
+    }
+
+    @Test
+    @DisplayName("Массовый запрос с истёкшим сроком должен отвечать 503 по парам, не разбирая файлы")
+    void shouldFailBulkPairsAfterDeadline() throws InterruptedException {
+        // Given
+        runBulkTasksInline();
+        List<BulkQuery> queries = List.of(new BulkQuery("/data/slow.xlsx", "1"));
+        List<BulkResult> results;
+
+        // When
+        try (ScanProgress ignored = new ScanProgress().withTimeout(1).attach()) {
+            Thread.sleep(5);
+            results = service.getNthMinimalBulk(queries);
+        }
+
+        // Then
+        assertEquals(List.of(BulkResult.failure(queries.get(0), 503, "Request timed out after 1 ms")), results);
+        verifyNoInteractions(converter, sorter);
     }
 
     // === Исключения: validateInput ===
@@ -145,7 +864,7 @@ class NMinimalServiceImplTest {
         );
         assertEquals("File link cannot be null", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verifyNoMoreInteractions(converter, sorter);
+        verifyNoMoreInteractions(converter, sorter, cache, index);
     }
 
     @Test
@@ -165,7 +884,7 @@ class NMinimalServiceImplTest {
         );
         assertEquals("N value cannot be null", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verifyNoMoreInteractions(converter, sorter);
+        verifyNoMoreInteractions(converter, sorter, cache, index);
     }
 
     @Test
@@ -185,7 +904,7 @@ class NMinimalServiceImplTest {
         );
         assertEquals("Invalid characters in file path", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verifyNoMoreInteractions(converter, sorter);
+        verifyNoMoreInteractions(converter, sorter, cache, index);
     }
 
     @Test
@@ -205,10 +924,10 @@ class NMinimalServiceImplTest {
         );
         assertEquals("N value is not a valid integer", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verifyNoMoreInteractions(converter, sorter);
+        verifyNoMoreInteractions(converter, sorter, cache, index);
     }
 
-    // === Исключения: convert и validateNWithListSize ===
+    // === Исключения: read и validateNWithValuesCount ===
 
     @Test
     @DisplayName("Должен пробрасывать LinkProcessingException при ошибке чтения файла")
@@ -219,7 +938,7 @@ class NMinimalServiceImplTest {
 
         doNothing().when(validator).validateInput(fileLink, N);
         doThrow(new LinkProcessingException("Error reading Excel file"))
-                .when(converter).convert(fileLink);
+                .when(converter).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
 
         // When & Then
         LinkProcessingException exception = assertThrows(
@@ -228,7 +947,7 @@ class NMinimalServiceImplTest {
         );
         assertEquals("Error reading Excel file", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verify(converter).convert(fileLink);
+        verify(converter).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
         verifyNoMoreInteractions(sorter);
     }
 
@@ -238,12 +957,11 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "5";
-        List<Long> numbers = List.of(1L, 2L, 3L); // только 3 числа
 
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(numbers);
+        stubRead(fileLink, 1L, 2L, 3L); // только 3 числа
         doThrow(new ValueNProcessingException("N exceeds the number of values in first column"))
-                .when(validator).validateNWithListSize(numbers, 5);
+                .when(validator).validateNWithValuesCount(3, 5);
 
         // When & Then
         ValueNProcessingException exception = assertThrows(
@@ -252,8 +970,8 @@ class NMinimalServiceImplTest {
         );
         assertEquals("N exceeds the number of values in first column", exception.getMessage());
         verify(validator).validateInput(fileLink, N);
-        verify(converter).convert(fileLink);
-        verify(validator).validateNWithListSize(numbers, 5);
+        verify(converter).read(eq(fileLink), eq(ColumnSelector.FIRST), any());
+        verify(validator).validateNWithValuesCount(3, 5);
         verifyNoMoreInteractions(sorter);
     }
 
@@ -265,12 +983,11 @@ class NMinimalServiceImplTest {
         // Given
         String fileLink = "/data/test.xlsx";
         String N = "1";
-        List<Long> empty = List.of();
 
         doNothing().when(validator).validateInput(fileLink, N);
-        when(converter.convert(fileLink)).thenReturn(empty);
+        stubRead(fileLink);
         doThrow(new ValueNProcessingException("N exceeds the number of values in first column"))
-                .when(validator).validateNWithListSize(empty, 1);
+                .when(validator).validateNWithValuesCount(0, 1);
 
         // When & Then
         ValueNProcessingException exception = assertThrows(
@@ -280,5 +997,42 @@ class NMinimalServiceImplTest {
         assertEquals("N exceeds the number of values in first column", exception.getMessage());
     }
 
-}
+    // Конвертер передаёт значения в приёмник так же, как при потоковом чтении файла
+    private void stubRead(String fileLink, long... values) {
+        when(converter.read(eq(fileLink), eq(ColumnSelector.FIRST), any())).thenAnswer(invocation -> {
+            LongConsumer sink = invocation.getArgument(2);
+            for (long value : values) {
+                sink.accept(value);
+            }
+            return (long) values.length;
+        });
+    }
+
+    // Второй запрос стартует, когда первый уже читает файл, и ждёт его результат, а не читает сам
+    private <T> List<T> runWhileReading(CountDownLatch reading, CountDownLatch release, Supplier<T> first,
+                                        Supplier<T> second) throws InterruptedException {
+        AtomicReference<T> firstResult = new AtomicReference<>();
+        AtomicReference<T> secondResult = new AtomicReference<>();
+        Thread leader = new Thread(() -> firstResult.set(first.get()));
+        Thread follower = new Thread(() -> secondResult.set(second.get()));
 
+        leader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        follower.start();
+        while (follower.getState() != Thread.State.WAITING && follower.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        leader.join(5000);
+        follower.join(5000);
+        return List.of(firstResult.get(), secondResult.get());
+    }
+
+    // Задачи массового запроса выполняются в потоке теста
+    private void runBulkTasksInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(bulkExecutor).execute(any());
+    }
+}
@@ -0,0 +1,56 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.KllSketch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchCacheTest {
+
+    private static final FileKey FIRST = new FileKey("/data/first.xlsx", 100, 1);
+    private static final FileKey SECOND = new FileKey("/data/second.xlsx", 200, 2);
+    private static final FileKey THIRD = new FileKey("/data/third.xlsx", 300, 3);
+
+    private QuantileSketchCache createCache(int maxEntries) {
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getSketch().setCacheEntries(maxEntries);
+        return new QuantileSketchCache(properties);
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять давно не использованный скетч при превышении числа записей")
+    void shouldEvictLeastRecentlyUsed() {
+        // Given
+        QuantileSketchCache cache = createCache(2);
+        KllSketch first = new KllSketch();
+        cache.put(FIRST, first);
+        cache.put(SECOND, new KllSketch());
+
+        // When
+        cache.get(FIRST);
+        cache.put(THIRD, new KllSketch());
+
+        // Then
+        assertSame(first, cache.get(FIRST));
+        assertNull(cache.get(SECOND));
+        assertNotNull(cache.get(THIRD));
+        assertEquals(2, cache.size());
+        assertTrue(cache.getCurrentBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Не должен сохранять скетчи, если кеш отключён")
+    void shouldNotStoreWhenDisabled() {
+        // Given
+        QuantileSketchCache cache = createCache(0);
+
+        // When
+        cache.put(FIRST, new KllSketch());
+
+        // Then
+        assertNull(cache.get(FIRST));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,146 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.SortedColumn;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedColumnCacheTest {
+
+    private static final FileKey FIRST = new FileKey("/data/first.xlsx", 100, 1);
+    private static final FileKey SECOND = new FileKey("/data/second.xlsx", 200, 2);
+    private static final FileKey THIRD = new FileKey("/data/third.xlsx", 300, 3);
+
+    private SortedColumnCache createCache(long maxBytes) {
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getCache().setMaxBytes(maxBytes);
+        return new SortedColumnCache(properties);
+    }
+
+    private SortedColumn column(int size) {
+        return new SortedColumn(new long[size]);
+    }
+
+    @Test
+    @DisplayName("Должен считать попадания и промахи")
+    void shouldCountHitsAndMisses() {
+        // Given
+        SortedColumnCache cache = createCache(1024);
+        SortedColumn column = column(4);
+
+        // When
+        assertNull(cache.get(FIRST));
+        cache.put(FIRST, column);
+        SortedColumn cached = cache.get(FIRST);
+
+        // Then
+        assertSame(column, cached);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять давно не использованную запись при превышении объёма")
+    void shouldEvictLeastRecentlyUsedEntry() {
+        // Given: каждая запись 32 + 8 * 10 = 112 байт, в кеш помещаются две
+        SortedColumnCache cache = createCache(250);
+        cache.put(FIRST, column(10));
+        cache.put(SECOND, column(10));
+
+        // When: обращение к первой делает вторую самой старой
+        cache.get(FIRST);
+        cache.put(THIRD, column(10));
+
+        // Then
+        assertNotNull(cache.get(FIRST));
+        assertNull(cache.get(SECOND));
+        assertNotNull(cache.get(THIRD));
+        assertEquals(224, cache.getCurrentBytes());
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать число записей, даже если отображённые столбцы почти не занимают кучу")
+    void shouldEvictWhenEntryLimitIsExceeded() {
+        // Given
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getCache().setMaxEntries(2);
+        SortedColumnCache cache = new SortedColumnCache(properties);
+        SortedColumn mapped = new SortedColumn(ByteBuffer.allocateDirect(8 * 1000).asLongBuffer());
+
+        // When
+        cache.put(FIRST, mapped);
+        cache.put(SECOND, mapped);
+        cache.put(THIRD, mapped);
+
+        // Then
+        assertEquals(2, cache.size());
+        assertNull(cache.get(FIRST));
+        assertSame(mapped, cache.get(THIRD));
+    }
+
+    @Test
+    @DisplayName("Не должен сохранять столбец больше всего кеша")
+    void shouldSkipColumnLargerThanCache() {
+        // Given
+        SortedColumnCache cache = createCache(100);
+
+        // When
+        cache.put(FIRST, column(100));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    @Test
+    @DisplayName("Должен допускать сортировку столбца только со второго промаха")
+    void shouldAdmitColumnOnSecondMiss() {
+        // Given
+        SortedColumnCache cache = createCache(1024);
+
+        // When & Then
+        assertFalse(cache.admit(FIRST, false));
+        cache.recordMiss(FIRST, 10);
+        assertTrue(cache.admit(FIRST, false));
+        assertFalse(cache.admit(FIRST, false));
+    }
+
+    @Test
+    @DisplayName("Не должен допускать столбец больше кеша, если он не попадёт в индекс")
+    void shouldNotAdmitColumnLargerThanCacheWithoutIndex() {
+        // Given: 32 + 8 * 100 байт не помещаются в 100
+        SortedColumnCache cache = createCache(100);
+
+        // When
+        cache.recordMiss(FIRST, 100);
+
+        // Then
+        assertFalse(cache.admit(FIRST, false));
+        assertTrue(cache.admit(FIRST, true));
+    }
+
+    @Test
+    @DisplayName("Должен считать новую версию файла другим ключом")
+    void shouldTreatModifiedFileAsDifferentKey() {
+        // Given
+        SortedColumnCache cache = createCache(1024);
+        cache.put(FIRST, column(1));
+
+        // When
+        SortedColumn result = cache.get(new FileKey(FIRST.canonicalPath(), FIRST.size(), FIRST.lastModified() + 1));
+
+        // Then
+        assertNull(result);
+    }
+
+    @Test
+    @DisplayName("Кеш с нулевым объёмом должен быть отключён")
+    void shouldBeDisabledWhenMaxBytesIsZero() {
+        assertFalse(createCache(0).isEnabled());
+        assertTrue(createCache(1).isEnabled());
+    }
+}
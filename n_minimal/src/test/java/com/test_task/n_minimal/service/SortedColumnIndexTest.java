@@ -0,0 +1,151 @@
+package com.test_task.n_minimal.service;
+
+import com.test_task.n_minimal.configuration.NMinimalProperties;
+import com.test_task.n_minimal.util.SortedColumn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedColumnIndexTest {
+
+    private static final FileKey KEY = new FileKey("/data/report.xlsx", 4096, 1_700_000_000_000L);
+
+    @TempDir
+    Path tempDir;
+
+    private SortedColumnIndex index;
+
+    @BeforeEach
+    void setUp() {
+        NMinimalProperties properties = new NMinimalProperties();
+        properties.getIndex().setDirectory(tempDir.resolve("index").toString());
+        index = new SortedColumnIndex(properties);
+    }
+
+    @Test
+    @DisplayName("Должен записывать индекс и читать его обратно через отображение в память")
+    void shouldStoreAndLoadMappedColumn() {
+        // Given
+        long[] values = {Long.MIN_VALUE, -5L, 0L, 17L, Long.MAX_VALUE};
+
+        // When
+        index.store(KEY, new SortedColumn(values));
+        SortedColumn loaded = index.load(KEY);
+
+        // Then
+        assertNotNull(loaded);
+        assertEquals(values.length, loaded.size());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], loaded.get(i));
+        }
+        assertEquals(17L, loaded.nthMinimal(4));
+    }
+
+    @Test
+    @DisplayName("Должен возвращать null, если индекса нет")
+    void shouldReturnNullWhenIndexIsMissing() {
+        assertNull(index.load(KEY));
+    }
+
+    @Test
+    @DisplayName("Должен хранить индексы разных листов и столбцов одного файла раздельно")
+    void shouldKeepSeparateIndexPerSheetAndColumn() {
+        // Given
+        FileKey secondColumn = new FileKey(KEY.canonicalPath(), KEY.size(), KEY.lastModified(), null, 1);
+        FileKey namedSheet = new FileKey(KEY.canonicalPath(), KEY.size(), KEY.lastModified(), "Report", 0);
+
+        // When
+        index.store(KEY, new SortedColumn(new long[]{1L}));
+        index.store(secondColumn, new SortedColumn(new long[]{2L}));
+
+        // Then
+        assertEquals(1L, index.load(KEY).get(0));
+        assertEquals(2L, index.load(secondColumn).get(0));
+        assertNull(index.load(namedSheet));
+        assertNotEquals(index.indexPath(KEY), index.indexPath(secondColumn));
+    }
+
+    @Test
+    @DisplayName("Должен игнорировать индекс изменённого исходного файла")
+    void shouldIgnoreIndexOfModifiedSource() {
+        // Given
+        index.store(KEY, new SortedColumn(new long[]{1L, 2L}));
+
+        // When
+        SortedColumn loaded = index.load(new FileKey(KEY.canonicalPath(), KEY.size() + 1, KEY.lastModified()));
+
+        // Then
+        assertNull(loaded);
+    }
+
+    @Test
+    @DisplayName("Должен игнорировать индекс с повреждёнными значениями")
+    void shouldIgnoreCorruptedIndex() throws IOException {
+        // Given
+        index.store(KEY, new SortedColumn(new long[]{1L, 2L, 3L}));
+        corruptLastByte(index.indexPath(KEY));
+
+        // When & Then
+        assertNull(index.load(KEY));
+    }
+
+    @Test
+    @DisplayName("Должен проверять контрольную сумму один раз, пока файл индекса не изменился")
+    void shouldVerifyChecksumOncePerIndexFile() throws IOException {
+        // Given
+        index.store(KEY, new SortedColumn(new long[]{1L, 2L, 3L}));
+        Path path = index.indexPath(KEY);
+        assertNotNull(index.load(KEY));
+        FileTime modified = Files.getLastModifiedTime(path);
+
+        // When: значения меняются в том же файле, а время изменения возвращается прежним
+        corruptLastByte(path);
+        Files.setLastModifiedTime(path, modified);
+        SortedColumn trusted = index.load(KEY);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modified.toMillis() + 1000));
+        SortedColumn reverified = index.load(KEY);
+
+        // Then
+        assertNotNull(trusted);
+        assertNull(reverified);
+    }
+
+    @Test
+    @DisplayName("Должен проверять перезаписанный индекс заново")
+    void shouldVerifyRewrittenIndex() {
+        // Given
+        index.store(KEY, new SortedColumn(new long[]{1L}));
+        assertNotNull(index.load(KEY));
+
+        // When
+        index.store(KEY, new SortedColumn(new long[]{5L, 6L}));
+        SortedColumn loaded = index.load(KEY);
+
+        // Then
+        assertEquals(2, loaded.size());
+        assertEquals(6L, loaded.get(1));
+    }
+
+    @Test
+    @DisplayName("Без каталога индекс должен быть отключён")
+    void shouldBeDisabledWithoutDirectory() {
+        assertTrue(index.isEnabled());
+        assertFalse(new SortedColumnIndex(new NMinimalProperties()).isEnabled());
+    }
+
+    private static void corruptLastByte(Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(Files.size(path) - 1);
+            file.write(0x7F);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.LinkProcessingException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnSelectorTest {
+
+    @Test
+    @DisplayName("Без параметров должен выбирать первый столбец первого листа")
+    void shouldSelectFirstColumnByDefault() {
+        // Given
+        ColumnSelector selector = new ColumnSelector(" ", null);
+
+        // Then
+        assertEquals(ColumnSelector.FIRST, selector);
+        assertTrue(selector.isFirst());
+        assertEquals(0, selector.columnIndex());
+        assertEquals(0, selector.sheetIndex(List.of("Data")));
+    }
+
+    @Test
+    @DisplayName("Должен принимать столбец буквой в любом регистре или номером с 1")
+    void shouldResolveColumnByLetterOrNumber() {
+        assertEquals(1, new ColumnSelector(null, "B").columnIndex());
+        assertEquals(27, new ColumnSelector(null, "ab").columnIndex());
+        assertEquals(16_383, new ColumnSelector(null, "XFD").columnIndex());
+        assertEquals(2, new ColumnSelector(null, " 3 ").columnIndex());
+    }
+
+    @DisplayName("Должен выбрасывать LinkProcessingException при неверном столбце")
+    @ParameterizedTest(name = "Столбец: {0}")
+    @ValueSource(strings = {"0", "A1", "XFE", "16385", "99999999999", "-1", "Б"})
+    void shouldThrowOnInvalidColumn(String column) {
+        LinkProcessingException exception = assertThrows(LinkProcessingException.class,
+                () -> new ColumnSelector(null, column).columnIndex());
+        assertEquals("Invalid column: " + column, exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен находить лист по имени без учёта регистра, затем по номеру с 1")
+    void shouldResolveSheetByNameThenNumber() {
+        // Given
+        List<String> names = List.of("Summary", "2", "Report");
+
+        // Then
+        assertEquals(2, new ColumnSelector("report", null).sheetIndex(names));
+        assertEquals(1, new ColumnSelector("2", null).sheetIndex(names));
+        assertEquals(2, new ColumnSelector("3", null).sheetIndex(names));
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать LinkProcessingException, если листа нет")
+    void shouldThrowWhenSheetIsMissing() {
+        // Given
+        List<String> names = List.of("Summary");
+
+        // When & Then
+        LinkProcessingException exception = assertThrows(LinkProcessingException.class,
+                () -> new ColumnSelector("4", null).sheetIndex(names));
+        assertEquals("Sheet not found: 4", exception.getMessage());
+        assertThrows(LinkProcessingException.class, () -> new ColumnSelector("Missing", null).sheetIndex(names));
+    }
+}
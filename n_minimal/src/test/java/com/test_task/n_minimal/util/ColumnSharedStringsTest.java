@@ -0,0 +1,83 @@
+package com.test_task.n_minimal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnSharedStringsTest {
+
+    private static final String SHARED_STRINGS = "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<si><t>10</t></si>"
+            + "<si><t>20</t></si>"
+            + "<si><t>text</t></si>"
+            + "<si><r><t>1</t></r><r><t> 2</t></r><rPh sb=\"0\" eb=\"1\"><t>9</t></rPh></si>"
+            + "<si><t>-5</t></si>"
+            + "</sst>";
+
+    private static ColumnSharedStrings load(int... referenced) throws Exception {
+        ColumnSharedStrings sharedStrings = new ColumnSharedStrings();
+        for (int index : referenced) {
+            sharedStrings.reference(index);
+        }
+        sharedStrings.load(new ByteArrayInputStream(SHARED_STRINGS.getBytes(StandardCharsets.UTF_8)));
+        return sharedStrings;
+    }
+
+    @Test
+    @DisplayName("Должен сохранять только строки, на которые ссылается столбец")
+    void shouldKeepOnlyReferencedStrings() throws Exception {
+        // Given
+        ColumnSharedStrings sharedStrings = load(1, 4);
+        LongColumn values = new LongColumn();
+
+        // When
+        boolean first = sharedStrings.resolve(0, values::add);
+        boolean second = sharedStrings.resolve(1, values::add);
+        boolean fifth = sharedStrings.resolve(4, values::add);
+
+        // Then
+        assertFalse(first);
+        assertTrue(second);
+        assertTrue(fifth);
+        assertEquals(LongColumn.of(20, -5), values);
+    }
+
+    @Test
+    @DisplayName("Должен склеивать фрагменты форматированной строки без фонетики и пропускать нечисловые строки")
+    void shouldParseRichTextAndSkipNonNumeric() throws Exception {
+        // Given
+        ColumnSharedStrings sharedStrings = load(2, 3);
+        LongColumn values = new LongColumn();
+
+        // When
+        boolean text = sharedStrings.resolve(2, values::add);
+        boolean rich = sharedStrings.resolve(3, values::add);
+
+        // Then
+        assertFalse(text);
+        assertTrue(rich);
+        assertEquals(LongColumn.of(12), values);
+    }
+
+    @Test
+    @DisplayName("Должен не находить ссылки за пределами таблицы строк")
+    void shouldNotResolveMissingIndex() throws Exception {
+        // Given
+        ColumnSharedStrings sharedStrings = load(0, 100);
+        LongColumn values = new LongColumn();
+
+        // When
+        boolean missing = sharedStrings.resolve(100, values::add);
+        boolean present = sharedStrings.resolve(0, values::add);
+
+        // Then
+        assertFalse(missing);
+        assertTrue(present);
+        assertEquals(LongColumn.of(10), values);
+        assertTrue(sharedStrings.hasReferences());
+    }
+}
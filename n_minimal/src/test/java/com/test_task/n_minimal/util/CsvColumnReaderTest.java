@@ -0,0 +1,147 @@
+package com.test_task.n_minimal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvColumnReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CsvColumnReader reader =
+            new CsvColumnReader(ForkJoinPool.commonPool(), CsvColumnReader.DEFAULT_CHUNK_SIZE);
+
+    private String createCsv(String content) throws IOException {
+        Path file = tempDir.resolve("data.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toString();
+    }
+
+    @Test
+    @DisplayName("Должен извлекать целые числа первого поля и пропускать остальные значения")
+    void shouldExtractIntegersFromFirstField() throws IOException {
+        // Given
+        String link = createCsv("﻿id,name\r\n"
+                + "5,a\r\n"
+                + " -3 ;b\n"
+                + "\"1 000\",c\n"
+                + "2.5,d\n"
+                + "\n"
+                + ",e\n"
+                + "+7\t\n"
+                + "12abc,f\n"
+                + "9");
+
+        // When
+        CsvColumnReader.Scan scan = reader.read(link);
+
+        // Then
+        assertArrayEquals(new long[]{5L, -3L, 1000L, 7L, 9L}, scan.values.toArray());
+        assertEquals(9, scan.rows);
+        assertEquals(3, scan.skipped); // заголовок, 2.5 и 12abc
+    }
+
+    @Test
+    @DisplayName("Должен разбирать граничные значения long и пропускать переполнение")
+    void shouldHandleLongBounds() throws IOException {
+        // Given
+        String link = createCsv(Long.MAX_VALUE + "\n" + Long.MIN_VALUE + "\n"
+                + "9223372036854775808\n-9223372036854775809\n");
+
+        // When
+        CsvColumnReader.Scan scan = reader.read(link);
+
+        // Then
+        assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MIN_VALUE}, scan.values.toArray());
+        assertEquals(2, scan.skipped);
+    }
+
+    @Test
+    @DisplayName("Должен сохранять порядок строк при разбиении на куски по границам строк")
+    void shouldKeepOrderAcrossChunks() throws IOException {
+        // Given
+        long[] expected = LongStream.range(0, 5_000).map(i -> i * 7919 % 10_007 - 5_000).toArray();
+        String link = createCsv(LongStream.of(expected).mapToObj(v -> v + ",x")
+                .collect(Collectors.joining("\n", "", "\n")));
+        CsvColumnReader chunked = new CsvColumnReader(ForkJoinPool.commonPool(), 64);
+
+        // When
+        CsvColumnReader.Scan scan = chunked.read(link);
+
+        // Then
+        assertArrayEquals(expected, scan.values.toArray());
+        assertEquals(expected.length, scan.rows);
+    }
+
+    @Test
+    @DisplayName("Должен передавать числа кусков в приёмник, не собирая весь столбец")
+    void shouldStreamChunksIntoSink() throws IOException {
+        // Given
+        long[] expected = LongStream.range(0, 5_000).map(i -> i * 7919 % 10_007 - 5_000).toArray();
+        String link = createCsv(LongStream.of(expected).mapToObj(v -> v + ",x")
+                .collect(Collectors.joining("\n", "header\n", "\n")));
+        CsvColumnReader chunked = new CsvColumnReader(ForkJoinPool.commonPool(), 64);
+        LongColumn received = new LongColumn();
+
+        // When
+        CsvColumnReader.Scan scan = chunked.read(link, 0, received::add);
+
+        // Then: порядок кусков не гарантирован, поэтому сравниваются отсортированные значения
+        long[] sorted = received.toArray();
+        Arrays.sort(sorted);
+        assertArrayEquals(LongStream.of(expected).sorted().toArray(), sorted);
+        assertTrue(scan.values.isEmpty());
+        assertEquals(expected.length, scan.count);
+        assertEquals(expected.length + 1, scan.rows);
+        assertEquals(1, scan.skipped);
+    }
+
+    @Test
+    @DisplayName("Должен возвращать пустой столбец для пустого файла")
+    void shouldReadEmptyFile() throws IOException {
+        // Given
+        String link = createCsv("");
+
+        // When
+        CsvColumnReader.Scan scan = reader.read(link);
+
+        // Then
+        assertTrue(scan.values.isEmpty());
+        assertEquals(0, scan.rows);
+    }
+
+    @Test
+    @DisplayName("Должен сообщать прогресс и прерывать разбор отменённого запроса")
+    void shouldReportProgressAndStopWhenCancelled() throws IOException {
+        // Given
+        String link = createCsv(LongStream.range(0, 10_000).mapToObj(Long::toString)
+                .collect(Collectors.joining("\n")));
+        CsvColumnReader chunked = new CsvColumnReader(ForkJoinPool.commonPool(), 4096);
+        ScanProgress progress = new ScanProgress();
+
+        // When
+        try (ScanProgress ignored = progress.attach()) {
+            chunked.read(link);
+        }
+
+        // Then
+        assertEquals(10_000, progress.getRowsProcessed());
+        progress.cancel();
+        try (ScanProgress ignored = progress.attach()) {
+            assertThrows(CancellationException.class, () -> chunked.read(link));
+        }
+    }
+}
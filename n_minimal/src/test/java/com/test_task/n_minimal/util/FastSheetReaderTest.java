@@ -0,0 +1,312 @@
+package com.test_task.n_minimal.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FastSheetReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String PROLOG = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">";
+
+    // Лист из строк с одной ячейкой в заданном столбце
+    private static String sheet(String... cells) {
+        StringBuilder xml = new StringBuilder(PROLOG).append("<dimension ref=\"A1:C")
+                .append(cells.length).append("\"/><sheetData>");
+        for (int i = 0; i < cells.length; i++) {
+            xml.append("<row r=\"").append(i + 1).append("\">").append(cells[i]).append("</row>");
+        }
+        return xml.append("</sheetData><mergeCells count=\"0\"/></worksheet>").toString();
+    }
+
+    private static LongColumn readFast(String xml, int column) throws Exception {
+        return readFast(xml, null, column);
+    }
+
+    private static LongColumn readFast(String xml, String sharedStringsXml, int column) throws Exception {
+        LongColumn values = new LongColumn();
+        ColumnSharedStrings sharedStrings = new ColumnSharedStrings();
+        FastSheetReader reader = new FastSheetReader(sharedStrings, values::add, column);
+        assertTrue(reader.read(stream(xml)));
+        if (reader.hasPendingStrings()) {
+            sharedStrings.load(stream(sharedStringsXml));
+            reader.flush();
+        }
+        return values;
+    }
+
+    private static LongColumn readSax(String xml, SharedStrings sharedStrings, int column) throws Exception {
+        LongColumn values = new LongColumn();
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new SheetColumnHandler(sharedStrings, values::add, column));
+        parser.parse(new InputSource(stream(xml)));
+        return values;
+    }
+
+    // Значения общих строк приходят после остальных, поэтому разборщики сравниваются без учёта порядка
+    private static List<Long> sorted(LongColumn values) {
+        return values.toList().stream().sorted().toList();
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Должен приводить значения так же, как SAX-обработчик")
+    void shouldMatchSaxHandler() throws Exception {
+        // Given
+        SharedStrings sharedStrings = mock(SharedStrings.class);
+        when(sharedStrings.getItemAt(0)).thenReturn(new XSSFRichTextString(" 1 000 "));
+        when(sharedStrings.getItemAt(1)).thenReturn(new XSSFRichTextString("abc"));
+        when(sharedStrings.getCount()).thenReturn(2);
+        String xml = sheet(
+                "<c r=\"A1\"><v>42</v></c>",
+                "<c r=\"A2\" t=\"n\"><v>-123.9</v></c>",
+                "<c r=\"A3\"><v>1.5E3</v></c>",
+                "<c r=\"A4\"><v>9007199254740993</v></c>",
+                "<c r=\"A5\" t=\"s\"><v>0</v></c>",
+                "<c r=\"A6\" t=\"s\"><v>1</v></c>",
+                "<c r=\"A7\" t=\"inlineStr\"><is><t> - 7 </t></is></c>",
+                "<c r=\"A8\" t=\"inlineStr\"><is><r><t>1</t></r><r><t>2</t></r><rPh><t>9</t></rPh></is></c>",
+                "<c r=\"A9\" t=\"inlineStr\"><is><t>&#49;&amp;</t></is></c>",
+                "<c r=\"A10\" t=\"inlineStr\"><is><t>&#x31;&#x32;</t></is></c>",
+                "<c r=\"A11\"><f>SUM(B1:B2)</f><v>3</v></c>",
+                "<c r=\"A12\" t=\"b\"><v>1</v></c>",
+                "<c r=\"A13\" s=\"1\"/>",
+                "<c r=\"A14\" t=\"inlineStr\"><is><t>9223372036854775808</t></is></c>",
+                "<c r=\"A15\" t=\"inlineStr\"><is><t>-9223372036854775808</t></is></c>",
+                "<c r=\"A16\"><v><![CDATA[77]]></v></c>",
+                "<!-- комментарий --><c r=\"A17\"><v>  5  </v></c>");
+
+        // When
+        LongColumn fast = readFast(xml, "<sst><si><t xml:space=\"preserve\"> 1 000 </t></si><si><t>abc</t></si></sst>", 0);
+        LongColumn sax = readSax(xml, sharedStrings, 0);
+
+        // Then
+        assertEquals(sorted(sax), sorted(fast));
+        assertEquals(List.of(42L, -123L, 1500L, 9007199254740992L, -7L, 12L, 12L,
+                Long.MIN_VALUE, 77L, 5L, 1000L), fast.toList());
+    }
+
+    @Test
+    @DisplayName("Должен пропускать ячейки с битым индексом общей строки в обоих разборщиках")
+    void shouldSkipMalformedSharedStringIndex() throws Exception {
+        // Given
+        SharedStrings sharedStrings = mock(SharedStrings.class);
+        when(sharedStrings.getItemAt(0)).thenReturn(new XSSFRichTextString("10"));
+        when(sharedStrings.getCount()).thenReturn(1);
+        String xml = sheet(
+                "<c r=\"A1\" t=\"s\"><v>0</v></c>",
+                "<c r=\"A2\" t=\"s\"><v>x1</v></c>",
+                "<c r=\"A3\" t=\"s\"><v>-1</v></c>",
+                "<c r=\"A4\" t=\"s\"><v>5</v></c>",
+                "<c r=\"A5\"><v>7</v></c>");
+
+        // When
+        LongColumn fast = readFast(xml, "<sst><si><t>10</t></si></sst>", 0);
+        LongColumn sax = readSax(xml, sharedStrings, 0);
+
+        // Then
+        assertEquals(List.of(10L, 7L), sax.toList());
+        assertEquals(sorted(sax), sorted(fast));
+    }
+
+    @Test
+    @DisplayName("Должен выбирать столбец по ссылке ячейки, а без ссылки - по порядку")
+    void shouldSelectColumnByReferenceOrPosition() throws Exception {
+        // Given
+        String xml = sheet(
+                "<c r=\"A1\"><v>1</v></c><c r=\"C1\"><v>3</v></c>",
+                "<c><v>4</v></c><c><v>5</v></c><c><v>6</v></c>",
+                "<c r=\"AB3\"><v>7</v></c>");
+
+        // When
+        LongColumn third = readFast(xml, 2);
+        LongColumn twentyEighth = readFast(xml, 27);
+
+        // Then
+        assertEquals(List.of(3L, 6L), third.toList());
+        assertEquals(List.of(7L), twentyEighth.toList());
+    }
+
+    @Test
+    @DisplayName("Должен сразу передавать числа, а общие строки - после загрузки таблицы строк")
+    void shouldPassNumbersImmediatelyAndSharedStringsOnFlush() throws Exception {
+        // Given
+        String xml = sheet(
+                "<c r=\"A1\"><v>1</v></c>",
+                "<c r=\"A2\" t=\"s\"><v>1</v></c>",
+                "<c r=\"A3\"><v>3</v></c>",
+                "<c r=\"A4\" t=\"s\"><v>0</v></c>",
+                "<c r=\"A5\" t=\"s\"><v>1</v></c>",
+                "<c r=\"A6\" t=\"s\"><v>7</v></c>");
+        ColumnSharedStrings sharedStrings = new ColumnSharedStrings();
+        LongColumn values = new LongColumn();
+        FastSheetReader reader = new FastSheetReader(sharedStrings, values::add, 0);
+
+        // When
+        reader.read(stream(xml));
+        List<Long> beforeFlush = List.copyOf(values.toList());
+        sharedStrings.load(stream("<sst><si><t>text</t></si><si><t>2</t></si></sst>"));
+        reader.flush();
+
+        // Then
+        assertEquals(List.of(1L, 3L), beforeFlush);
+        assertEquals(List.of(1L, 3L, 2L, 2L), values.toList());
+        assertEquals(4, reader.getValues());
+        assertEquals(2, reader.getSkipped());
+        assertFalse(reader.hasPendingStrings());
+    }
+
+    @Test
+    @DisplayName("Должен считать строки, значения и пропуски и сообщать прогресс")
+    void shouldCountScanAndReportProgress() throws IOException {
+        // Given
+        String xml = sheet("<c r=\"A1\"><v>1</v></c>", "<c r=\"A2\" t=\"b\"><v>0</v></c>", "<c r=\"B3\"><v>1</v></c>");
+        ScanProgress progress = new ScanProgress();
+        FastSheetReader reader;
+
+        // When
+        try (ScanProgress ignored = progress.attach()) {
+            reader = new FastSheetReader(new ColumnSharedStrings(), value -> { }, 0);
+            reader.read(stream(xml));
+        }
+
+        // Then
+        assertEquals(3, progress.getRowsProcessed());
+        assertEquals(3, progress.getEstimatedRows());
+        assertEquals(3, reader.getRows());
+        assertEquals(1, reader.getValues());
+        assertEquals(1, reader.getSkipped());
+    }
+
+    @Test
+    @DisplayName("Должен закрывать самозакрывающиеся ячейки и считать их так же, как SAX-обработчик")
+    void shouldCountSelfClosingCellsLikeSaxHandler() throws Exception {
+        // Given
+        String xml = sheet(
+                "<c r=\"A1\"><v>1</v></c>",
+                "<c r=\"A2\" s=\"2\"/>",
+                "<c r=\"A3\" s=\"2\" t=\"n\"/><c r=\"B3\"><v>9</v></c>",
+                "<c r=\"A4\" t=\"inlineStr\"><is><t xml:space=\"preserve\"/></is></c>",
+                "<c r=\"A5\"><v>5</v></c>");
+        FastSheetReader fast = new FastSheetReader(new ColumnSharedStrings(), value -> { }, 0);
+        SheetColumnHandler sax = new SheetColumnHandler(mock(SharedStrings.class), value -> { }, 0);
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(sax);
+
+        // When
+        fast.read(stream(xml));
+        parser.parse(new InputSource(stream(xml)));
+
+        // Then
+        assertEquals(2, sax.getValues());
+        assertEquals(3, sax.getSkipped());
+        assertEquals(sax.getRows(), fast.getRows());
+        assertEquals(sax.getValues(), fast.getValues());
+        assertEquals(sax.getSkipped(), fast.getSkipped());
+    }
+
+    @Test
+    @DisplayName("Должен читать значения, разрезанные границей буфера")
+    void shouldReadValuesAcrossBufferBoundaries() throws Exception {
+        // Given
+        int rows = 20_000;
+        String[] cells = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            cells[i] = "<c r=\"A" + (i + 1) + "\" s=\"3\"><v>" + (i * 7919L) + "</v></c>";
+        }
+
+        // When
+        LongColumn values = readFast(sheet(cells), 0);
+
+        // Then
+        assertEquals(rows, values.size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i * 7919L, values.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен отказываться от листа с префиксами или не в UTF-8, ничего не передав в приёмник")
+    void shouldDeclineUnsupportedSheets() throws IOException {
+        // Given
+        String prefixed = "<?xml version=\"1.0\"?><x:worksheet xmlns:x=\"urn:x\"><x:sheetData><x:row>"
+                + "<x:c r=\"A1\"><x:v>1</x:v></x:c></x:row></x:sheetData></x:worksheet>";
+        String latin = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><worksheet><sheetData><row>"
+                + "<c r=\"A1\"><v>1</v></c></row></sheetData></worksheet>";
+        LongColumn values = new LongColumn();
+
+        // When
+        boolean prefixedRead = new FastSheetReader(new ColumnSharedStrings(), values::add, 0).read(stream(prefixed));
+        boolean latinRead = new FastSheetReader(new ColumnSharedStrings(), values::add, 0).read(stream(latin));
+
+        // Then
+        assertFalse(prefixedRead);
+        assertFalse(latinRead);
+        assertEquals(0, values.size());
+    }
+
+    @Test
+    @DisplayName("Должен разбирать лист, записанный POI, без перехода на SAX")
+    void shouldReadSheetWrittenByPoi() throws Exception {
+        // Given
+        File file = tempDir.resolve("poi.xlsx").toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            XSSFSheet sheet = workbook.createSheet();
+            XSSFRow first = sheet.createRow(0);
+            first.createCell(0).setCellValue(5);
+            first.createCell(1).setCellValue("text");
+            sheet.createRow(1).createCell(0).setCellValue(" 1 234 ");
+            sheet.createRow(2).createCell(0).setCellValue(-7.8);
+            workbook.write(out);
+        }
+        LongColumn values = new LongColumn();
+        boolean read;
+
+        // When
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ColumnSharedStrings sharedStrings = new ColumnSharedStrings();
+            FastSheetReader fastReader = new FastSheetReader(sharedStrings, values::add, 0);
+            try (InputStream sheet = reader.getSheetsData().next()) {
+                read = fastReader.read(sheet);
+            }
+            sharedStrings.load(pkg);
+            fastReader.flush();
+            pkg.revert();
+        }
+
+        // Then
+        assertTrue(read);
+        assertEquals(List.of(5L, -7L, 1234L), values.toList());
+    }
+}
@@ -0,0 +1,111 @@
+package com.test_task.n_minimal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KllSketchTest {
+
+    // Ранги значения в отсортированном массиве: с первого вхождения до последнего, с 1
+    private static long[] rankRange(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int first = low;
+        while (low < sorted.length && sorted[low] == value) {
+            low++;
+        }
+        return new long[]{first + 1, low};
+    }
+
+    @Test
+    @DisplayName("Должен отвечать точно, пока значения помещаются в нижний уровень")
+    void shouldBeExactForSmallInput() {
+        // Given
+        KllSketch sketch = new KllSketch();
+        LongStream.of(5, 2, 8, 2, 9, -1).forEach(sketch);
+
+        // When & Then
+        assertEquals(-1L, sketch.nthSmallest(1));
+        assertEquals(2L, sketch.nthSmallest(2));
+        assertEquals(2L, sketch.nthSmallest(3));
+        assertEquals(9L, sketch.nthSmallest(6));
+        assertEquals(0, sketch.rankError());
+        assertEquals(6, sketch.count());
+    }
+
+    @Test
+    @DisplayName("Ранг ответа должен отличаться от N не больше границы ошибки, а память - не зависеть от размера")
+    void shouldStayWithinRankErrorBound() {
+        // Given
+        int size = 1_000_000;
+        long[] values = new SplittableRandom(42).longs(size, -1_000_000_000L, 1_000_000_000L).toArray();
+        KllSketch sketch = new KllSketch();
+        Arrays.stream(values).forEach(sketch);
+        Arrays.sort(values);
+
+        // When & Then
+        long bound = sketch.rankError();
+        assertTrue(bound > 0 && bound < size / 50, "bound " + bound);
+        for (long n = 1; n <= size; n += 9_973) {
+            long[] ranks = rankRange(values, sketch.nthSmallest(n));
+            long error = n < ranks[0] ? ranks[0] - n : Math.max(0, n - ranks[1]);
+            assertTrue(error <= bound, "N=" + n + " error " + error + " > " + bound);
+        }
+        assertTrue(sketch.retained() < 4 * KllSketch.DEFAULT_K, "retained " + sketch.retained());
+        assertTrue(sketch.sizeInBytes() < 8L * size / 100);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать повторы значений в ранге")
+    void shouldCountDuplicates() {
+        // Given
+        KllSketch sketch = new KllSketch(16);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.accept(i < 9_000 ? 7 : 100);
+        }
+
+        // When & Then
+        assertEquals(7L, sketch.nthSmallest(1));
+        assertEquals(7L, sketch.nthSmallest(8_000));
+        assertEquals(100L, sketch.nthSmallest(10_000));
+    }
+
+    @Test
+    @DisplayName("Одинаковые данные должны давать одинаковые ответы")
+    void shouldBeDeterministic() {
+        // Given
+        KllSketch first = new KllSketch();
+        KllSketch second = new KllSketch();
+        new SplittableRandom(7).longs(100_000).forEach(first);
+        new SplittableRandom(7).longs(100_000).forEach(second);
+
+        // When & Then
+        assertEquals(first.nthSmallest(50_000), second.nthSmallest(50_000));
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать IllegalArgumentException для ранга вне 1..count")
+    void shouldRejectRankOutsideCount() {
+        // Given
+        KllSketch sketch = new KllSketch();
+        sketch.accept(1);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> sketch.nthSmallest(0));
+        assertThrows(IllegalArgumentException.class, () -> sketch.nthSmallest(2));
+        assertThrows(IllegalArgumentException.class, () -> new KllSketch(4));
+    }
+}
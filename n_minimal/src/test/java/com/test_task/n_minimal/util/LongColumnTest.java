@@ -0,0 +1,82 @@
+package com.test_task.n_minimal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongColumnTest {
+
+    @Test
+    @DisplayName("Должен расширяться при добавлении сверх начальной ёмкости")
+    void shouldGrowBeyondInitialCapacity() {
+        // Given
+        LongColumn column = new LongColumn(2);
+
+        // When
+        for (long i = 0; i < 1_000; i++) {
+            column.add(i);
+        }
+
+        // Then
+        assertEquals(1_000, column.size());
+        assertEquals(0L, column.get(0));
+        assertEquals(999L, column.get(999));
+        assertTrue(column.array().length >= 1_000);
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать IndexOutOfBoundsException за пределами размера, а не ёмкости")
+    void shouldThrowWhenIndexOutOfSize() {
+        // Given
+        LongColumn column = new LongColumn(16);
+        column.add(5L);
+
+        // When & Then
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(1));
+    }
+
+    @Test
+    @DisplayName("Адаптеры списков должны сохранять значения и порядок")
+    void shouldConvertToAndFromList() {
+        // Given
+        List<Long> list = List.of(3L, -1L, Long.MAX_VALUE);
+
+        // When
+        LongColumn column = LongColumn.fromList(list);
+
+        // Then
+        assertEquals(list, column.toList());
+        assertArrayEquals(new long[]{3L, -1L, Long.MAX_VALUE}, column.toArray());
+        assertEquals(LongColumn.of(3L, -1L, Long.MAX_VALUE), column);
+    }
+
+    @Test
+    @DisplayName("Пустой столбец должен быть пустым")
+    void shouldBeEmptyWhenCreated() {
+        // Given
+        LongColumn column = new LongColumn();
+
+        // Then
+        assertTrue(column.isEmpty());
+        assertTrue(column.toList().isEmpty());
+    }
+
+    @Test
+    @DisplayName("addAll должен дописывать значения другого столбца в конец")
+    void shouldAppendAllValues() {
+        // Given
+        LongColumn column = new LongColumn(1);
+        column.add(1L);
+        LongColumn other = LongColumn.of(2L, 3L, 4L);
+
+        // When
+        column.addAll(other);
+        column.addAll(new LongColumn());
+
+        // Then
+        assertArrayEquals(new long[]{1L, 2L, 3L, 4L}, column.toArray());
+    }
+}
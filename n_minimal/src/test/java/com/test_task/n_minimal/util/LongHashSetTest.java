@@ -0,0 +1,73 @@
+package com.test_task.n_minimal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    @DisplayName("Должен добавлять значение один раз, включая 0 и крайние значения long")
+    void shouldAddEachValueOnce() {
+        // Given
+        LongHashSet set = new LongHashSet();
+
+        // When & Then
+        for (long value : new long[]{0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertFalse(set.contains(value));
+            assertTrue(set.add(value));
+            assertFalse(set.add(value));
+            assertTrue(set.contains(value));
+        }
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    @DisplayName("Должен расширять таблицу сверх ожидаемого размера без потери значений")
+    void shouldGrowBeyondExpectedSize() {
+        // Given
+        LongHashSet set = new LongHashSet(4);
+
+        // When
+        for (long value = 0; value < 10_000; value++) {
+            set.add(value * 1024);
+        }
+
+        // Then
+        assertEquals(10_000, set.size());
+        for (long value = 0; value < 10_000; value++) {
+            assertTrue(set.contains(value * 1024));
+            assertFalse(set.contains(value * 1024 + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен удалять значения, не разрывая цепочки пробирования")
+    void shouldRemoveWithoutBreakingProbeChains() {
+        // Given
+        Random random = new Random(5);
+        LongHashSet set = new LongHashSet(16);
+        Set<Long> expected = new HashSet<>();
+
+        // When: значения из узкого диапазона часто попадают в одни цепочки
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(64) - 32;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), set.size());
+        for (long value = -32; value < 32; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScanProgressTest {
+
+    @Test
+    @DisplayName("Должен привязываться к потоку до закрытия")
+    void shouldBindToCurrentThreadUntilClosed() {
+        // Given
+        ScanProgress progress = new ScanProgress();
+
+        // When & Then
+        try (ScanProgress attached = progress.attach()) {
+            assertSame(attached, ScanProgress.current());
+        }
+        assertNull(ScanProgress.current());
+        assertDoesNotThrow(ScanProgress::checkCurrent);
+    }
+
+    @Test
+    @DisplayName("Должен запоминать число строк и выбрасывать CancellationException после отмены")
+    void shouldThrowCancellationAfterCancel() {
+        // Given
+        ScanProgress progress = new ScanProgress();
+        progress.checkpoint(4096);
+
+        // When
+        progress.cancel();
+
+        // Then
+        assertThrows(CancellationException.class, () -> progress.checkpoint(8192));
+        assertEquals(8192, progress.getRowsProcessed());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать RequestTimeoutException по истечении срока")
+    void shouldThrowRequestTimeoutAfterDeadline() throws InterruptedException {
+        // Given
+        ScanProgress progress = new ScanProgress().withTimeout(1);
+
+        // When
+        Thread.sleep(5);
+
+        // Then
+        RequestTimeoutException exception = assertThrows(RequestTimeoutException.class, progress::check);
+        assertEquals("Request timed out after 1 ms", exception.getMessage());
+        assertEquals(0, progress.remainingNanos());
+    }
+
+    @Test
+    @DisplayName("Без срока проверка не должна прерывать запрос")
+    void shouldNotExpireWithoutDeadline() {
+        // Given
+        ScanProgress progress = new ScanProgress();
+
+        // When & Then
+        assertFalse(progress.hasDeadline());
+        assertDoesNotThrow(progress::check);
+    }
+}
@@ -0,0 +1,63 @@
+package com.test_task.n_minimal.util;
+
+import com.test_task.n_minimal.exception.ValueNProcessingException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.LongBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedColumnTest {
+
+    private final SortedColumn column = new SortedColumn(new long[]{-5, 0, 3, 7, 10, 20, 40, 80, 160, 320});
+
+    @Test
+    @DisplayName("Должен отдавать N-й минимум и максимум по индексу")
+    void shouldReturnNthMinimalAndMaximal() {
+        // When & Then
+        assertEquals(-5L, column.nthMinimal(1));
+        assertEquals(320L, column.nthMaximal(1));
+        assertEquals(-5L, column.nthMaximal(10));
+        assertThrows(ValueNProcessingException.class, () -> column.nthMaximal(11));
+    }
+
+    @Test
+    @DisplayName("Должен считать процентиль по методу ближайшего ранга")
+    void shouldReturnNearestRankPercentile() {
+        // When & Then
+        assertEquals(-5L, column.percentile(0));
+        assertEquals(-5L, column.percentile(10));
+        assertEquals(0L, column.percentile(10.1));
+        assertEquals(10L, column.percentile(50));
+        assertEquals(160L, column.percentile(90));
+        assertEquals(320L, column.percentile(100));
+    }
+
+    @Test
+    @DisplayName("Должен находить границы двоичным поиском, включая значения вне столбца")
+    void shouldFindBoundsWithBinarySearch() {
+        // When & Then
+        assertEquals(0, column.countAtMost(-6));
+        assertEquals(1, column.countAtMost(-5));
+        assertEquals(4, column.countAtMost(9));
+        assertEquals(10, column.countAtMost(Long.MAX_VALUE));
+        assertEquals(3, column.lowerBound(4));
+        assertEquals(3, column.lowerBound(7));
+        assertEquals(4, column.upperBound(7));
+        assertEquals(0, column.lowerBound(Long.MIN_VALUE));
+    }
+
+    @Test
+    @DisplayName("Должен искать так же по отображённому в память буферу")
+    void shouldSearchDirectBuffer() {
+        // Given
+        LongBuffer direct = java.nio.ByteBuffer.allocateDirect(8 * 4).asLongBuffer();
+        direct.put(new long[]{1, 2, 4, 8}).flip();
+        SortedColumn mapped = new SortedColumn(direct);
+
+        // When & Then
+        assertEquals(3, mapped.countAtMost(5));
+        assertEquals(4L, mapped.nthMaximal(2));
+    }
+}
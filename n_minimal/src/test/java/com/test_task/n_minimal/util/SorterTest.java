@@ -1,11 +1,15 @@
 package com.test_task.n_minimal.util;
 
+import com.test_task.n_minimal.exception.RequestTimeoutException;
+import com.test_task.n_minimal.exception.ValueNProcessingException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -220,6 +224,209 @@ class SorterTest {
         assertEquals(List.of(1L, 3L, 4L), linkedListResult);
     }
 
+    // === Тесты для selectWithHeap(long[] values, int size, int n) ===
+
+    @Test
+    @DisplayName("Куча должна находить N-й минимум среди уникальных значений")
+    void shouldSelectNthDistinctMinimumWithHeap() {
+        // Given
+        long[] values = {5L, 3L, 9L, 3L, 1L, 7L, 1L, 2L};
+
+        // When & Then
+        assertEquals(1L, sorter.selectWithHeap(values, values.length, 1));
+        assertEquals(3L, sorter.selectWithHeap(values, values.length, 3));
+        assertEquals(9L, sorter.selectWithHeap(values, values.length, 6));
+    }
+
+    @Test
+    @DisplayName("Куча должна учитывать только первые size элементов массива")
+    void shouldRespectSizeInHeapSelection() {
+        // Given
+        long[] values = {4L, 8L, 6L, -100L, -200L};
+
+        // When
+        long result = sorter.selectWithHeap(values, 3, 1);
+
+        // Then
+        assertEquals(4L, result);
+    }
+
+    @Test
+    @DisplayName("Куча должна выбрасывать ValueNProcessingException, если уникальных значений меньше N")
+    void shouldThrowWhenNotEnoughDistinctValuesForHeap() {
+        // Given
+        long[] values = {42L, 42L, 42L, 7L};
+
+        // When & Then
+        ValueNProcessingException exception = assertThrows(
+                ValueNProcessingException.class,
+                () -> sorter.selectWithHeap(values, values.length, 3)
+        );
+        assertEquals("N exceeds the number of distinct values in first column", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Куча должна совпадать с полной сортировкой на большом случайном массиве")
+    void shouldMatchFullSortOnLargeRandomArray() {
+        // Given
+        Random random = new Random(7);
+        long[] values = new long[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(10_000) - 5_000;
+        }
+        long[] distinctSorted = Arrays.stream(values).distinct().sorted().toArray();
+
+        // When & Then
+        for (int n : new int[]{1, 2, 10, 99, 500}) {
+            assertEquals(distinctSorted[n - 1], sorter.selectWithHeap(values, values.length, n));
+        }
+    }
+
+    @Test
+    @DisplayName("Куча без distinct должна учитывать повторы")
+    void shouldCountDuplicatesWithHeapWhenNotDistinct() {
+        // Given
+        long[] values = {5L, 3L, 9L, 3L, 1L, 7L, 1L, 2L};
+
+        // When & Then
+        assertEquals(1L, sorter.selectWithHeap(values, values.length, 2, false));
+        assertEquals(3L, sorter.selectWithHeap(values, values.length, 5, false));
+        assertEquals(9L, sorter.selectWithHeap(values, values.length, 8, false));
+        ValueNProcessingException exception = assertThrows(
+                ValueNProcessingException.class,
+                () -> sorter.selectWithHeap(values, values.length, 9, false)
+        );
+        assertEquals("N exceeds the number of values in first column", exception.getMessage());
+    }
+
+    // === Тесты для select(long[] values, int size, int n) ===
+
+    @Test
+    @DisplayName("Introselect должен находить N-й минимум среди уникальных значений")
+    void shouldSelectNthDistinctMinimum() {
+        // Given
+        long[] values = {5L, 3L, 9L, 3L, 1L, 7L, 1L, 2L, 0L, 0L};
+
+        // When & Then
+        assertEquals(0L, sorter.select(values.clone(), values.length, 1));
+        assertEquals(3L, sorter.select(values.clone(), values.length, 4));
+        assertEquals(9L, sorter.select(values.clone(), values.length, 7));
+    }
+
+    @Test
+    @DisplayName("Introselect должен выбрасывать ValueNProcessingException, если уникальных значений меньше N")
+    void shouldThrowWhenNotEnoughDistinctValuesForSelect() {
+        // Given
+        long[] values = {42L, 42L, 42L, 7L};
+
+        // When & Then
+        ValueNProcessingException exception = assertThrows(
+                ValueNProcessingException.class,
+                () -> sorter.select(values, values.length, 3)
+        );
+        assertEquals("N exceeds the number of distinct values in first column", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Introselect должен совпадать с полной сортировкой на разных формах входа")
+    void shouldMatchFullSortOnDifferentInputShapes() {
+        // Given
+        int size = 20_000;
+        Random random = new Random(11);
+        long[] randomValues = random.longs(size).toArray();
+        long[] ascending = LongStream.range(0, size).toArray();
+        long[] descending = LongStream.range(0, size).map(i -> size - i).toArray();
+        long[] organPipe = LongStream.range(0, size).map(i -> Math.min(i, size - i)).toArray();
+        long[] fewDistinct = random.longs(size, -50, 50).toArray();
+
+        for (long[] values : List.of(randomValues, ascending, descending, organPipe, fewDistinct)) {
+            long[] distinctSorted = Arrays.stream(values).distinct().sorted().toArray();
+
+            // When & Then
+            for (int n : new int[]{1, 2, distinctSorted.length / 2, distinctSorted.length}) {
+                assertEquals(distinctSorted[n - 1], sorter.select(values.clone(), values.length, n));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Introselect без distinct должен совпадать с полной сортировкой с повторами")
+    void shouldMatchFullSortWithDuplicatesWhenNotDistinct() {
+        // Given
+        int size = 20_000;
+        Random random = new Random(13);
+        long[] fewDistinct = random.longs(size, -50, 50).toArray();
+        long[] allEqual = new long[size];
+        long[] sorted = fewDistinct.clone();
+        Arrays.sort(sorted);
+
+        // When & Then
+        for (int n : new int[]{1, 2, size / 2, size}) {
+            assertEquals(sorted[n - 1], sorter.select(fewDistinct.clone(), size, n, false));
+            assertEquals(0L, sorter.select(allEqual.clone(), size, n, false));
+        }
+        assertThrows(ValueNProcessingException.class, () -> sorter.select(allEqual, size, size + 1, false));
+    }
+
+    @Test
+    @DisplayName("Introselect должен находить N-й минимум, когда уникальных значений больше начальной ёмкости множества")
+    void shouldSelectWhenDistinctValuesExceedInitialCapacity() {
+        // Given
+        long[] values = new Random(17).longs(200_000, 0, 150_000).toArray();
+        long[] distinctSorted = Arrays.stream(values).distinct().sorted().toArray();
+
+        // When & Then
+        for (int n : new int[]{1, distinctSorted.length / 3, distinctSorted.length}) {
+            assertEquals(distinctSorted[n - 1], sorter.select(values.clone(), values.length, n));
+        }
+    }
+
+    // === Тесты для sortDistinct(LongColumn column) ===
+
+    @Test
+    @DisplayName("Должен возвращать отсортированные уникальные значения столбца")
+    void shouldSortDistinctValuesOfColumn() {
+        // Given
+        LongColumn column = LongColumn.of(5L, -3L, 5L, 0L, 9L, -3L, 0L);
+
+        // When
+        SortedColumn sorted = sorter.sortDistinct(column);
+
+        // Then
+        assertEquals(4, sorted.size());
+        assertEquals(-3L, sorted.nthMinimal(1));
+        assertEquals(0L, sorted.nthMinimal(2));
+        assertEquals(9L, sorted.nthMinimal(4));
+        assertThrows(ValueNProcessingException.class, () -> sorted.nthMinimal(5));
+    }
+
+    // === Отмена и срок запроса ===
+
+    @Test
+    @DisplayName("Должен прерывать выбор отменённого запроса")
+    void shouldStopSelectWhenCancelled() {
+        // Given
+        long[] values = LongStream.range(0, 10_000).map(i -> 10_000 - i).toArray();
+
+        // When & Then
+        try (ScanProgress progress = new ScanProgress().attach()) {
+            progress.cancel();
+            assertThrows(CancellationException.class, () -> sorter.select(values, values.length, 5_000));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать RequestTimeoutException, если срок запроса истёк")
+    void shouldThrowRequestTimeoutWhenDeadlinePassed() {
+        // Given
+        LongColumn column = LongColumn.of(3L, 1L, 2L);
+
+        // When & Then
+        try (ScanProgress ignored = new ScanProgress().withTimeout(0).attach()) {
+            assertThrows(RequestTimeoutException.class, () -> sorter.sortDistinct(column));
+        }
+    }
+
     // === Вспомогательные методы ===
 
     /**
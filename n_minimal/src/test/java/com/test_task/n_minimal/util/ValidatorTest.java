@@ -86,9 +86,9 @@ class ValidatorTest {
         assertEquals("File not found", exception.getMessage());
     }
 
-    @DisplayName("Должен выбрасывать FileProcessingException, если расширение не .xlsx")
+    @DisplayName("Должен выбрасывать FileProcessingException, если расширение не .xlsx, .xls или .csv")
     @ParameterizedTest(name = "Расширение: {0}")
-    @ValueSource(strings = {".xls", ".xlsm", ".txt", ".docx", ""})
+    @ValueSource(strings = {".xlsm", ".xlsb", ".txt", ".docx", ""})
     void shouldThrowFileProcessingExceptionOnInvalidExtension(String ext) {
         File file = new File(tempDir.toFile(), "test" + ext);
         try {
@@ -101,7 +101,21 @@ class ValidatorTest {
                 FileProcessingException.class,
                 () -> validator.validateInput(file.getAbsolutePath(), "1")
         );
-        assertEquals("File is not an Excel .xlsx file", exception.getMessage());
+        assertEquals("File is not an Excel .xlsx, .xls or .csv file", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен принимать файлы .csv и .xls")
+    void shouldAcceptCsvAndXlsFiles() throws IOException {
+        // Given
+        File csv = tempDir.resolve("export.CSV").toFile();
+        File xls = tempDir.resolve("legacy.xls").toFile();
+        assertTrue(csv.createNewFile());
+        assertTrue(xls.createNewFile());
+
+        // When & Then
+        assertDoesNotThrow(() -> validator.validateInput(csv.getAbsolutePath(), "1"));
+        assertDoesNotThrow(() -> validator.validateInput(xls.getAbsolutePath(), "1"));
     }
 
     @Test
@@ -239,4 +253,74 @@ class ValidatorTest {
             validator.validateNWithListSize(null,  Integer.parseInt(N));
         });
     }
-}
\ No newline at end of file
+
+    // === Тесты для validateNWithColumnSize(LongColumn numbers) ===
+
+    @Test
+    @DisplayName("Должен выбрасывать ValueNProcessingException, если размер столбца < N")
+    void shouldThrowWhenColumnSizeLessThanN() {
+        // Given
+        LongColumn numbers = LongColumn.of(1L, 2L);
+
+        // When & Then
+        ValueNProcessingException exception = assertThrows(
+                ValueNProcessingException.class,
+                () -> validator.validateNWithColumnSize(numbers, 3)
+        );
+        assertEquals("N exceeds the number of values in first column", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен пройти, если размер столбца >= N")
+    void shouldPassWhenColumnSizeAtLeastN() {
+        // Given
+        LongColumn numbers = LongColumn.of(1L, 2L, 3L);
+
+        // When & Then
+        assertDoesNotThrow(() -> validator.validateNWithColumnSize(numbers, 3));
+    }
+
+    // === Тесты для validateLink(String link) и validateN(String N) ===
+
+    @Test
+    @DisplayName("validateLink должен проверять только ссылку")
+    void shouldValidateLinkWithoutN() {
+        assertDoesNotThrow(() -> validator.validateLink(validFile.getAbsolutePath()));
+        assertThrows(LinkNotFoundException.class, () -> validator.validateLink(""));
+        assertThrows(FileProcessingException.class,
+                () -> validator.validateLink(tempDir.resolve("missing.xlsx").toString()));
+    }
+
+    @Test
+    @DisplayName("validateN должен возвращать N в виде числа")
+    void shouldReturnParsedN() {
+        assertEquals(42, validator.validateN("42"));
+        assertThrows(ValueNNotFoundException.class, () -> validator.validateN(null));
+        assertThrows(ValueNProcessingException.class, () -> validator.validateN("abc"));
+        assertThrows(ValueNProcessingException.class, () -> validator.validateN("0"));
+    }
+
+    @Test
+    @DisplayName("validatePercentile должен принимать значения от 0 до 100")
+    void shouldValidatePercentile() {
+        assertEquals(99.9, validator.validatePercentile("99.9"));
+        assertEquals(0, validator.validatePercentile("0"));
+        assertThrows(ValueNNotFoundException.class, () -> validator.validatePercentile(""));
+        assertThrows(ValueNProcessingException.class, () -> validator.validatePercentile("p95"));
+        assertThrows(ValueNProcessingException.class, () -> validator.validatePercentile("100.5"));
+        assertThrows(ValueNProcessingException.class, () -> validator.validatePercentile("NaN"));
+    }
+
+    @Test
+    @DisplayName("validateValue, validateRange и validateLimit должны проверять границы диапазона")
+    void shouldValidateRangeBounds() {
+        assertEquals(-7L, validator.validateValue("-7", "From"));
+        ValueNProcessingException thrown = assertThrows(ValueNProcessingException.class,
+                () -> validator.validateValue("1.5", "To"));
+        assertEquals("To value is not a valid integer", thrown.getMessage());
+        assertThrows(ValueNNotFoundException.class, () -> validator.validateValue(null, "X"));
+        assertDoesNotThrow(() -> validator.validateRange(3, 3));
+        assertThrows(ValueNProcessingException.class, () -> validator.validateRange(4, 3));
+        assertThrows(ValueNProcessingException.class, () -> validator.validateLimit(-1));
+    }
+}
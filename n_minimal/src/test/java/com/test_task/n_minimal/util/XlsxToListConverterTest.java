@@ -2,7 +2,9 @@ package com.test_task.n_minimal.util;
 
 import com.test_task.n_minimal.exception.LinkProcessingException;
 import com.test_task.n_minimal.exception.ValueNProcessingException;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +19,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -297,4 +300,372 @@ class XlsxToListConverterTest {
         // Then
         assertEquals(List.of(-100L, -200L), result);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Должен игнорировать ячейки с формулами")
+    void shouldIgnoreFormulaCells() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(10L);
+        sheet.createRow(1).createCell(0).setCellFormula("A1*2");
+        sheet.createRow(2).createCell(0).setCellValue(30L);
+
+        File file = createTempXlsx("formula.xlsx");
+
+        // When
+        List<Long> result = converter.convert(file.getAbsolutePath());
+
+        // Then
+        assertEquals(List.of(10L, 30L), result);
+    }
+
+    @Test
+    @DisplayName("Должен читать строки, записанные как inlineStr (потоковая запись SXSSF)")
+    void shouldExtractInlineStrings() throws IOException {
+        // Given
+        File file = tempDir.resolve("inline.xlsx").toFile();
+        try (SXSSFWorkbook streaming = new SXSSFWorkbook();
+             var out = new java.io.FileOutputStream(file)) {
+            Sheet streamingSheet = streaming.createSheet();
+            streamingSheet.createRow(0).createCell(0).setCellValue(" 77 ");
+            streamingSheet.createRow(1).createCell(0).setCellValue(5L);
+            streamingSheet.createRow(2).createCell(0).setCellValue("text");
+            streaming.write(out);
+            streaming.dispose();
+        }
+
+        // When
+        List<Long> result = converter.convert(file.getAbsolutePath());
+
+        // Then
+        assertEquals(List.of(77L, 5L), result);
+    }
+
+    @Test
+    @DisplayName("Должен записывать в трассировку время открытия, разбора и счётчики ячеек")
+    void shouldReportScanToQueryTrace() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(1L);
+        sheet.createRow(1).createCell(0).setCellValue("text");
+        sheet.createRow(2).createCell(1).setCellValue(3L);
+        sheet.createRow(3).createCell(0).setCellValue(" 4 ");
+        File file = createTempXlsx("traced.xlsx");
+
+        // When
+        String timing;
+        String details;
+        try (QueryTrace trace = QueryTrace.start(true)) {
+            converter.convert(file.getAbsolutePath());
+            timing = trace.serverTiming();
+            details = trace.details();
+        }
+
+        // Then
+        assertTrue(timing.matches("open;dur=[0-9.]+, parse;dur=[0-9.]+, total;dur=[0-9.]+"), timing);
+        assertEquals("strategy=null; rows=4; values=2; skipped=1", details);
+        assertNull(QueryTrace.current());
+    }
+
+    @Test
+    @DisplayName("Должен сообщать прогресс разбора и оценку числа строк по размерности листа")
+    void shouldReportScanProgress() throws IOException {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            sheet.createRow(i).createCell(0).setCellValue(i);
+        }
+        File file = createTempXlsx("progress.xlsx");
+        ScanProgress progress = new ScanProgress();
+
+        // When
+        try (ScanProgress ignored = progress.attach()) {
+            converter.convertToColumn(file.getAbsolutePath());
+        }
+
+        // Then
+        assertEquals(10, progress.getRowsProcessed());
+        assertEquals(10, progress.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Должен прерывать разбор отменённого запроса в точке проверки")
+    void shouldStopParsingWhenCancelled() throws IOException {
+        // Given
+        for (int i = 0; i < ScanProgress.CHECKPOINT_ROWS * 2; i++) {
+            sheet.createRow(i).createCell(0).setCellValue(i);
+        }
+        File file = createTempXlsx("cancelled.xlsx");
+        ScanProgress progress = new ScanProgress();
+        progress.cancel();
+
+        // When & Then
+        try (ScanProgress ignored = progress.attach()) {
+            assertThrows(CancellationException.class, () -> converter.convertToColumn(file.getAbsolutePath()));
+        }
+        assertEquals(ScanProgress.CHECKPOINT_ROWS, progress.getRowsProcessed());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать примитивный столбец с теми же значениями, что и список")
+    void shouldConvertToPrimitiveColumn() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(7L);
+        sheet.createRow(1).createCell(0).setCellValue(" 8 ");
+        sheet.createRow(2).createCell(0).setCellValue(-9L);
+
+        File file = createTempXlsx("column.xlsx");
+
+        // When
+        LongColumn column = converter.convertToColumn(file.getAbsolutePath());
+
+        // Then
+        // Значения общих строк идут после чисел
+        assertArrayEquals(new long[]{7L, -9L, 8L}, column.toArray());
+        assertEquals(converter.convert(file.getAbsolutePath()), column.toList());
+    }
+
+    @Test
+    @DisplayName("Должен передавать значения в накопитель без сборки столбца и возвращать их количество")
+    void shouldStreamValuesIntoAccumulator() throws IOException {
+        // Given
+        long[] values = {9L, 4L, 4L, 7L, 1L};
+        for (int i = 0; i < values.length; i++) {
+            sheet.createRow(i).createCell(0).setCellValue(values[i]);
+        }
+        File file = createTempXlsx("fused.xlsx");
+        NthMinimalHeap heap = new NthMinimalHeap(3);
+
+        // When
+        long count = converter.read(file.getAbsolutePath(), heap);
+
+        // Then
+        assertEquals(5, count);
+        assertEquals(7L, heap.nthMinimal()); // уникальные: 1, 4, 7, 9
+    }
+
+    @Test
+    @DisplayName("Должен читать первый столбец CSV-файла тем же путём, что и xlsx")
+    void shouldConvertCsvFile() throws IOException {
+        // Given
+        Path file = tempDir.resolve("export.csv");
+        Files.writeString(file, "value,comment\n7,a\n-9,b\n8,c\n");
+        NthMinimalHeap heap = new NthMinimalHeap(2);
+
+        // When
+        LongColumn column = converter.convertToColumn(file.toString());
+        long count = converter.read(file.toString(), heap);
+
+        // Then
+        assertArrayEquals(new long[]{7L, -9L, 8L}, column.toArray());
+        assertEquals(3, count);
+        assertEquals(7L, heap.nthMinimal());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать ValueNProcessingException, если в CSV нет чисел")
+    void shouldThrowWhenCsvHasNoNumbers() throws IOException {
+        // Given
+        Path file = tempDir.resolve("text.csv");
+        Files.writeString(file, "a,b\nc,d\n");
+
+        // When & Then
+        ValueNProcessingException exception = assertThrows(ValueNProcessingException.class,
+                () -> converter.convertToColumn(file.toString()));
+        assertEquals("No numbers found in first column", exception.getMessage());
+    }
+
+    // === Тесты для .xls (BIFF) ===
+
+    // Вспомогательный метод для создания временного .xls файла
+    private File createTempXls(String filename, HSSFWorkbook xls) throws IOException {
+        File file = tempDir.resolve(filename).toFile();
+        try (var out = new java.io.FileOutputStream(file); xls) {
+            xls.write(out);
+        }
+        return file;
+    }
+
+    @Test
+    @DisplayName("Должен читать первый столбец первого листа .xls по тем же правилам, что и xlsx")
+    void shouldConvertXlsFile() throws IOException {
+        // Given
+        HSSFWorkbook xls = new HSSFWorkbook();
+        Sheet first = xls.createSheet("First");
+        first.createRow(0).createCell(0).setCellValue(42.9);      // усекается до 42
+        first.createRow(1).createCell(0).setCellValue(" -7 ");    // строка из таблицы общих строк
+        first.createRow(2).createCell(0).setCellValue("text");
+        first.createRow(3).createCell(0).setCellFormula("1+1");
+        first.createRow(4).createCell(0).setCellValue(true);
+        Row row = first.createRow(5);
+        row.createCell(0).setCellValue(100_000L);                 // RK-запись
+        row.createCell(1).setCellValue(5L);                       // не первый столбец
+        first.createRow(6).createCell(1).setCellValue(6L);
+        xls.createSheet("Second").createRow(0).createCell(0).setCellValue(1L);
+
+        File file = createTempXls("legacy.xls", xls);
+
+        // When
+        LongColumn column = converter.convertToColumn(file.getAbsolutePath());
+
+        // Then
+        assertArrayEquals(new long[]{42L, -7L, 100_000L}, column.toArray());
+    }
+
+    @Test
+    @DisplayName("Должен сообщать счётчики и прогресс разбора .xls")
+    void shouldTraceXlsScan() throws IOException {
+        // Given
+        HSSFWorkbook xls = new HSSFWorkbook();
+        Sheet first = xls.createSheet();
+        for (int i = 0; i < 10; i++) {
+            first.createRow(i).createCell(0).setCellValue(i);
+        }
+        first.createRow(10).createCell(0).setCellValue("n/a");
+        File file = createTempXls("trace.xls", xls);
+        ScanProgress progress = new ScanProgress();
+
+        // When
+        String details;
+        try (QueryTrace trace = QueryTrace.start(true); ScanProgress ignored = progress.attach()) {
+            converter.convertToColumn(file.getAbsolutePath());
+            details = trace.details();
+        }
+
+        // Then
+        assertEquals("strategy=null; rows=11; values=10; skipped=1", details);
+        assertEquals(11, progress.getRowsProcessed());
+        assertEquals(11, progress.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Должен прерывать разбор .xls отменённого запроса в точке проверки")
+    void shouldStopXlsParsingWhenCancelled() throws IOException {
+        // Given
+        HSSFWorkbook xls = new HSSFWorkbook();
+        Sheet first = xls.createSheet();
+        for (int i = 0; i < ScanProgress.CHECKPOINT_ROWS * 2; i++) {
+            first.createRow(i).createCell(0).setCellValue(i);
+        }
+        File file = createTempXls("cancelled.xls", xls);
+        ScanProgress progress = new ScanProgress();
+        progress.cancel();
+
+        // When & Then
+        try (ScanProgress ignored = progress.attach()) {
+            assertThrows(CancellationException.class, () -> converter.convertToColumn(file.getAbsolutePath()));
+        }
+        assertEquals(ScanProgress.CHECKPOINT_ROWS, progress.getRowsProcessed());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать LinkProcessingException, если .xls не является книгой BIFF")
+    void shouldThrowWhenXlsIsNotBiff() throws IOException {
+        // Given
+        Path file = tempDir.resolve("fake.xls");
+        Files.writeString(file, "not an excel file");
+
+        // When & Then
+        assertThrows(LinkProcessingException.class, () -> converter.convertToColumn(file.toString()));
+    }
+
+    // === Выбор листа и столбца ===
+
+    @Test
+    @DisplayName("Должен читать выбранный столбец выбранного по имени или номеру листа")
+    void shouldReadSelectedSheetAndColumn() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(1L);
+        Sheet report = workbook.createSheet("Report");
+        for (int i = 0; i < 3; i++) {
+            Row row = report.createRow(i);
+            row.createCell(0).setCellValue(100L + i);
+            row.createCell(2).setCellValue(30L - i);
+        }
+        report.createRow(3).createCell(1).setCellValue(999L);
+        File file = createTempXlsx("sheets.xlsx");
+
+        // When
+        LongColumn byName = converter.convertToColumn(file.getAbsolutePath(), new ColumnSelector("report", "C"));
+        LongColumn byNumber = converter.convertToColumn(file.getAbsolutePath(), new ColumnSelector("2", "1"));
+
+        // Then
+        assertArrayEquals(new long[]{30L, 29L, 28L}, byName.toArray());
+        assertArrayEquals(new long[]{100L, 101L, 102L}, byNumber.toArray());
+    }
+
+    @Test
+    @DisplayName("Должен выбрасывать LinkProcessingException, если выбранного листа нет")
+    void shouldThrowWhenSelectedSheetIsMissing() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(1L);
+        File file = createTempXlsx("single.xlsx");
+
+        // When & Then
+        LinkProcessingException exception = assertThrows(LinkProcessingException.class,
+                () -> converter.convertToColumn(file.getAbsolutePath(), new ColumnSelector("Missing", null)));
+        assertEquals("Sheet not found: Missing", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен приводить лист к null для первого листа и к имени из книги для остальных")
+    void shouldResolveSheetToCanonicalName() throws IOException {
+        // Given
+        sheet.createRow(0).createCell(0).setCellValue(1L);
+        workbook.createSheet("Report").createRow(0).createCell(0).setCellValue(2L);
+        String xlsx = createTempXlsx("resolve.xlsx").getAbsolutePath();
+        HSSFWorkbook xls = new HSSFWorkbook();
+        xls.createSheet("First");
+        xls.createSheet("Second");
+        String xlsLink = createTempXls("resolve.xls", xls).getAbsolutePath();
+
+        // When & Then
+        assertEquals(new ColumnSelector(null, "B"), converter.resolveSheet(xlsx, new ColumnSelector("1", "B")));
+        assertEquals(ColumnSelector.FIRST, converter.resolveSheet(xlsx, new ColumnSelector("testsheet", null)));
+        assertEquals(new ColumnSelector("Report", null), converter.resolveSheet(xlsx, new ColumnSelector("2", null)));
+        assertEquals(new ColumnSelector("Report", null),
+                converter.resolveSheet(xlsx, new ColumnSelector("REPORT", null)));
+        assertEquals(new ColumnSelector("Second", "C"), converter.resolveSheet(xlsLink, new ColumnSelector("2", "C")));
+        assertEquals(ColumnSelector.FIRST, converter.resolveSheet(xlsLink, new ColumnSelector("first", null)));
+        assertThrows(LinkProcessingException.class,
+                () -> converter.resolveSheet(xlsx, new ColumnSelector("Missing", null)));
+    }
+
+    @Test
+    @DisplayName("Должен читать выбранный столбец выбранного листа .xls")
+    void shouldReadSelectedXlsSheetAndColumn() throws IOException {
+        // Given
+        HSSFWorkbook xls = new HSSFWorkbook();
+        xls.createSheet("First").createRow(0).createCell(1).setCellValue(1L);
+        Sheet second = xls.createSheet("Second");
+        for (int i = 0; i < 3; i++) {
+            Row row = second.createRow(i);
+            row.createCell(0).setCellValue("skip");
+            row.createCell(1).setCellValue(10L * (i + 1));
+        }
+        xls.createSheet("Third").createRow(0).createCell(1).setCellValue(3L);
+        File file = createTempXls("sheets.xls", xls);
+
+        // When
+        LongColumn column = converter.convertToColumn(file.getAbsolutePath(), new ColumnSelector("Second", "B"));
+
+        // Then
+        assertArrayEquals(new long[]{10L, 20L, 30L}, column.toArray());
+        assertThrows(LinkProcessingException.class,
+                () -> converter.convertToColumn(file.getAbsolutePath(), new ColumnSelector("4", null)));
+    }
+
+    @Test
+    @DisplayName("Должен читать выбранное поле CSV и отклонять выбор листа")
+    void shouldReadSelectedCsvField() throws IOException {
+        // Given
+        Path file = tempDir.resolve("fields.csv");
+        Files.writeString(file, "name,comment,value\n\"a\",\"x, y\",5\nb,z,-3\nc\n");
+
+        // When
+        LongColumn column = converter.convertToColumn(file.toString(), new ColumnSelector(null, "C"));
+
+        // Then
+        assertArrayEquals(new long[]{5L, -3L}, column.toArray());
+        LinkProcessingException exception = assertThrows(LinkProcessingException.class,
+                () -> converter.convertToColumn(file.toString(), new ColumnSelector("1", null)));
+        assertEquals("CSV file has no sheets", exception.getMessage());
+    }
+}